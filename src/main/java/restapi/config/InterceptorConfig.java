@@ -1,20 +1,22 @@
-//package springrestapi.config;
-//
-//import spring.annotation.Autowired;
-//import spring.annotation.Configuration;
-//import springrestapi.interceptor.AuthInterceptor;
-//import springrestapi.interceptor.LoggerInterceptor;
-//
-//@Configuration
-//public class InterceptorConfig implements WebMvcConfigurer {
-//    @Autowired
-//    AuthInterceptor authInterceptor;
-//    @Autowired
-//    LoggerInterceptor loggerInterceptor;
-//
-//    @Override
-//    public void addInterceptors(InterceptorRegistry registry) {
-//        registry.addInterceptor(authInterceptor);
-//        registry.addInterceptor(loggerInterceptor);
-//    }
-//}
+package restapi.config;
+
+import spring.annotation.Autowired;
+import spring.annotation.Configuration;
+import restapi.interceptor.AuthInterceptor;
+import restapi.interceptor.LoggerInterceptor;
+import spring.server.InterceptorRegistry;
+import spring.server.WebMvcConfigurer;
+
+@Configuration
+public class InterceptorConfig implements WebMvcConfigurer {
+    @Autowired
+    AuthInterceptor authInterceptor;
+    @Autowired
+    LoggerInterceptor loggerInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(loggerInterceptor);
+        registry.addInterceptor(authInterceptor);
+    }
+}
@@ -0,0 +1,19 @@
+package restapi.config;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import spring.annotation.Bean;
+import spring.annotation.Configuration;
+
+@Configuration
+public class JsonConfig {
+
+    /**
+     * Compact output instead of the dispatcher's default pretty printing, which only costs bandwidth
+     * and serialization time; the field-access adapters take their fast path only for compact JSON.
+     */
+    @Bean
+    public Gson gson() {
+        return new GsonBuilder().create();
+    }
+}
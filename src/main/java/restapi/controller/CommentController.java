@@ -4,9 +4,7 @@ import restapi.annotation.Role;
 import spring.annotation.*;
 import restapi.exception.NotFoundException;
 import restapi.mapper.CommentMapper;
-import restapi.pojo.Comment;
-
-import java.util.List;
+import spring.json.JsonRows;
 
 @RequestMapping("")
 @RestController
@@ -16,12 +14,10 @@ public class CommentController {
     CommentMapper commentMapper;
 
     @Role("USER")
+    @Cacheable("comments")
     @GetMapping({"/comments?postId={id}", "/posts/{id}/comments"})
-    public List<Comment> getCommentsByPostId(@PathVariable int id) throws NotFoundException {
-        List<Comment> commentsByPostId = commentMapper.getCommentsByPostId(id);
-        if (commentsByPostId == null || commentsByPostId.size() == 0)
-            throw new NotFoundException(String.format("Post with id: '%d' does not have comments or does not exist", id));
-
-        return commentsByPostId;
+    public JsonRows getCommentsByPostId(@PathVariable int id) {
+        return commentMapper.getCommentsByPostIdJson(id)
+                .orElseThrow(() -> new NotFoundException(String.format("Post with id: '%d' does not have comments or does not exist", id)));
     }
 }
\ No newline at end of file
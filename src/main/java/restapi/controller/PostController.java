@@ -1,32 +1,53 @@
 package restapi.controller;
 
+import com.google.gson.JsonParseException;
+import restapi.event.PostChangedEvent;
 import restapi.mapper.PostMapper;
+import restapi.service.PostEventStream;
 import spring.annotation.*;
 import restapi.annotation.Role;
 import restapi.exception.IllegalDataException;
 import restapi.exception.NotFoundException;
 import restapi.pojo.Post;
+import spring.dic.events.ApplicationEventPublisher;
+import spring.exception.ResponseException;
+import spring.json.JsonRows;
+import spring.server.SseEmitter;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 @RequestMapping("/posts")
 @RestController
 public class PostController {
+    private static final int IMPORT_BATCH_SIZE = 500;
 
     @Autowired
     private PostMapper postMapper;
 
+    @Autowired
+    private PostEventStream postEventStream;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Role("USER")
+    @Cacheable("posts")
     @GetMapping
-    public List<Post> getAllPosts() throws NotFoundException {
-        List<Post> allPosts = postMapper.getAllPosts();
-        if (allPosts == null || allPosts.size() == 0)
-            throw new NotFoundException("Can't load all posts! No posts found!");
+    public JsonRows getAllPosts() {
+        return postMapper.getAllPostsJson()
+                .orElseThrow(() -> new NotFoundException("Can't load all posts! No posts found!"));
+    }
 
-        return allPosts;
+    @Role("USER")
+    @GetMapping("/events")
+    public SseEmitter streamPostEvents() {
+        return postEventStream.subscribe();
     }
 
     @Role("USER")
+    @Cacheable("posts")
     @GetMapping("/{id}")
     public Post getPostById(@PathVariable int id) throws NotFoundException {
         Post post = postMapper.getPostById(id);
@@ -37,28 +58,73 @@ public class PostController {
     }
 
     @Role("USER")
+    @CacheEvict("posts")
     @PostMapping
     public int createPost(@RequestBody Post post) throws IllegalDataException {
         if (post == null)
             throw new IllegalDataException("Invalid post provided!");
 
-        return postMapper.insertPost(post);
+        int inserted = postMapper.insertPost(post);
+        eventPublisher.publishEvent(new PostChangedEvent(this, PostChangedEvent.CREATED, post.id, post));
+        return inserted;
+    }
+
+    /**
+     * Inserts a JSON array of posts of any length, reading and writing it in batches. Each batch is
+     * committed on its own, so when the body turns out to be malformed or too large halfway, the
+     * error names the number of posts already imported.
+     */
+    @Role("ADMIN")
+    @RequestPriority(RequestPriority.Level.LOW)
+    @CacheEvict("posts")
+    @PostMapping("/import")
+    public int importPosts(@RequestBody Iterator<Post> posts) {
+        int inserted = 0;
+        List<Post> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        try {
+            while (posts.hasNext()) {
+                batch.add(posts.next());
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    inserted += postMapper.insertPosts(batch);
+                    batch.clear();
+                }
+            }
+        } catch (ResponseException e) {
+            throw new ResponseException(e.statusCode, partialImport(e.message, inserted));
+        } catch (JsonParseException e) {
+            throw new ResponseException(400, partialImport(e.getMessage(), inserted));
+        }
+
+        if (!batch.isEmpty())
+            inserted += postMapper.insertPosts(batch);
+
+        return inserted;
     }
 
     @Role("USER")
+    @CacheEvict("posts")
     @PutMapping
     public int updatePost(@RequestBody Post post) throws NotFoundException, IllegalDataException {
         Post oldPost = getPostById(post.id);
         if (oldPost.equals(post))
             throw new IllegalDataException("Unable to update post which is the same!");
 
-        return postMapper.updatePost(post);
+        int updated = postMapper.updatePost(post);
+        eventPublisher.publishEvent(new PostChangedEvent(this, PostChangedEvent.UPDATED, post.id, post));
+        return updated;
     }
 
     @Role("USER")
+    @CacheEvict({"posts", "comments"})
     @DeleteMapping(value = "/{id}")
     public int deletePost(@PathVariable int id) throws NotFoundException {
         getPostById(id);
-        return postMapper.deletePost(id);
+        int deleted = postMapper.deletePost(id);
+        eventPublisher.publishEvent(new PostChangedEvent(this, PostChangedEvent.DELETED, id, null));
+        return deleted;
+    }
+
+    private static String partialImport(String reason, int inserted) {
+        return String.format("%s; %d posts were imported before the error", reason, inserted);
     }
 }
\ No newline at end of file
@@ -1,11 +1,14 @@
 package restapi.controller;
 
 import restapi.annotation.Role;
+import restapi.event.UserChangedEvent;
+import restapi.service.PasswordHasher;
 import spring.annotation.*;
 import restapi.exception.IllegalDataException;
 import restapi.exception.NotFoundException;
 import restapi.mapper.UserMapper;
 import restapi.pojo.User;
+import spring.dic.events.ApplicationEventPublisher;
 
 import java.util.List;
 
@@ -16,7 +19,11 @@ public class UserController {
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Role("ADMIN")
+    @RequestPriority(RequestPriority.Level.CRITICAL)
     @GetMapping
     public List<User> getAllUsers() throws NotFoundException {
         List<User> allUsers = userMapper.getAllUsers();
@@ -29,15 +36,21 @@ public class UserController {
     @Role("USER")
     @PostMapping("/register")
     public int createUser(@RequestBody User user) throws IllegalDataException {
-        if (user == null)
+        if (user == null || user.password == null)
             throw new IllegalDataException("Invalid user provided!");
 
-        return userMapper.insertUser(user);
+        user.password = PasswordHasher.hash(user.password);
+        int inserted = userMapper.insertUser(user);
+        eventPublisher.publishEvent(new UserChangedEvent(this, user.id, user.username));
+        return inserted;
     }
 
     @Role("ADMIN")
+    @RequestPriority(RequestPriority.Level.CRITICAL)
     @DeleteMapping("/{id}")
     public int deleteUser(@PathVariable int id) {
-        return userMapper.deleteUser(id);
+        int deleted = userMapper.deleteUser(id);
+        eventPublisher.publishEvent(new UserChangedEvent(this, id, null));
+        return deleted;
     }
 }
@@ -0,0 +1,21 @@
+package restapi.event;
+
+import restapi.pojo.Post;
+import spring.dic.events.ApplicationEvent;
+
+public class PostChangedEvent extends ApplicationEvent {
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+
+    public final String type;
+    public final int id;
+    public final Post post;
+
+    public PostChangedEvent(Object source, String type, int id, Post post) {
+        super(source);
+        this.type = type;
+        this.id = id;
+        this.post = post;
+    }
+}
@@ -0,0 +1,14 @@
+package restapi.event;
+
+import spring.dic.events.ApplicationEvent;
+
+public class UserChangedEvent extends ApplicationEvent {
+    public final int id;
+    public final String username;
+
+    public UserChangedEvent(Object source, int id, String username) {
+        super(source);
+        this.id = id;
+        this.username = username;
+    }
+}
@@ -2,6 +2,6 @@ package restapi.exception;
 
 public class IllegalDataException extends Exception {
     public IllegalDataException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
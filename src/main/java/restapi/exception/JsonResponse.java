@@ -1,18 +1,23 @@
-//package restapi.exception;
-//
-//import java.sql.Timestamp;
-//
-//public class JsonResponse extends GlobalExceptionHandler {
-//    public Timestamp timestamp;
-//    public int status;
-//    public String error;
-//    public String message;
-//
-//    public JsonResponse(int status, String error, String message) {
-//        super();
-//        timestamp = new Timestamp(System.currentTimeMillis());
-//        this.status = status;
-//        this.error = error;
-//        this.message = message;
-//    }
-//}
+package restapi.exception;
+
+import spring.http.HttpStatus;
+
+import java.sql.Timestamp;
+
+public class JsonResponse {
+    public Timestamp timestamp;
+    public int status;
+    public String error;
+    public String message;
+
+    public JsonResponse(HttpStatus status, String message) {
+        this(status.value(), status.getReasonPhrase(), message);
+    }
+
+    public JsonResponse(int status, String error, String message) {
+        timestamp = new Timestamp(System.currentTimeMillis());
+        this.status = status;
+        this.error = error;
+        this.message = message;
+    }
+}
@@ -2,6 +2,6 @@ package restapi.exception;
 
 public class NotFoundException extends Exception {
     public NotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -1,14 +1,16 @@
 package restapi.mapper;
 
-import restapi.pojo.Comment;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Select;
-
-import java.util.List;
+import spring.annotation.RawJson;
+import spring.json.JsonRows;
 
 @Mapper
 public interface CommentMapper {
 
+    @RawJson
+    @Options(fetchSize = Integer.MIN_VALUE)
     @Select("SELECT * FROM comments WHERE postId = #{id}")
-    List<Comment> getCommentsByPostId(int id);
+    JsonRows getCommentsByPostIdJson(int id);
 }
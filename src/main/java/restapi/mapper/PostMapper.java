@@ -2,14 +2,18 @@ package restapi.mapper;
 
 import restapi.pojo.Post;
 import org.apache.ibatis.annotations.*;
+import spring.annotation.RawJson;
+import spring.json.JsonRows;
 
 import java.util.List;
 
 @Mapper
 public interface PostMapper {
 
+    @RawJson
+    @Options(fetchSize = Integer.MIN_VALUE)
     @Select("SELECT * FROM posts")
-    List<Post> getAllPosts();
+    JsonRows getAllPostsJson();
 
     @Select("SELECT * FROM posts WHERE id = #{id}")
     Post getPostById(int id);
@@ -17,6 +21,12 @@ public interface PostMapper {
     @Insert("INSERT INTO posts (userId, title, body) VALUES (#{userId}, #{title}, #{body})")
     int insertPost(Post post);
 
+    @Insert({"<script>",
+            "INSERT INTO posts (userId, title, body) VALUES",
+            "<foreach collection='posts' item='post' separator=','>(#{post.userId}, #{post.title}, #{post.body})</foreach>",
+            "</script>"})
+    int insertPosts(@Param("posts") List<Post> posts);
+
     @Update("UPDATE posts SET userId = #{userId}, title = #{title}, body = #{body} WHERE id = #{id}")
     int updatePost(Post post);
 
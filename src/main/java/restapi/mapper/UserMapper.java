@@ -4,7 +4,9 @@ import restapi.pojo.User;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 import java.util.List;
 
@@ -20,6 +22,9 @@ public interface UserMapper {
     @Insert("INSERT INTO users (id, username, password, role) VALUES (#{id}, #{username}, #{password}, #{role})")
     int insertUser(User user);
 
+    @Update("UPDATE users SET password = #{password} WHERE id = #{id}")
+    int updatePassword(@Param("id") int id, @Param("password") String password);
+
     @Delete("DELETE FROM users WHERE id = #{id}")
     int deleteUser(int id);
 }
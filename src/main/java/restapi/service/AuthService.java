@@ -1,7 +1,7 @@
-//package springrestapi.service;
-//
-//import springrestapi.pojo.AuthCode;
-//
-//public interface AuthService {
-//    AuthCode validateBasicAuthentication(String basicAuthHeaderValue, String role);
-//}
\ No newline at end of file
+package restapi.service;
+
+import restapi.pojo.AuthCode;
+
+public interface AuthService {
+    AuthCode validateBasicAuthentication(String basicAuthHeaderValue, String role);
+}
\ No newline at end of file
@@ -1,44 +1,102 @@
-//package springrestapi.service;
-//
-//import spring.annotation.Autowired;
-//import spring.annotation.Service;
-//import springrestapi.mapper.UserMapper;
-//import springrestapi.pojo.AuthCode;
-//import springrestapi.pojo.User;
-//import org.springframework.util.StringUtils;
-//
-//import java.nio.charset.StandardCharsets;
-//import java.util.Base64;
-//
-//import static springrestapi.pojo.AuthCode.*;
-//
-//@Service
-//public class AuthServiceImpl implements AuthService {
-//
-//    @Autowired
-//    UserMapper userMapper;
-//
-//    @Override
-//    public AuthCode validateBasicAuthentication(String basicAuthHeaderValue, String role) {
-//        if (StringUtils.hasText(basicAuthHeaderValue) && basicAuthHeaderValue.toLowerCase().startsWith("basic")) {
-//            String base64Credentials = basicAuthHeaderValue.substring("Basic".length()).trim();
-//            byte[] credDecoded = Base64.getDecoder().decode(base64Credentials);
-//            String credentials = new String(credDecoded, StandardCharsets.UTF_8);
-//            String[] values = credentials.split(":", 2);
-//
-//            if (values.length == 2) {
-//                String username = values[0];
-//                String password = values[1];
-//
-//                User user = userMapper.findUserByUsername(username);
-//                String userRole = user.role;
-//                if (userRole == null || !userRole.equals("ADMIN") && role.equals("ADMIN"))
-//                    return FORBIDDEN;
-//
-//                return user.username.equals(username) && user.password.equals(password) ? OK : UNAUTH;
-//            }
-//        }
-//
-//        return UNAUTH;
-//    }
-//}
\ No newline at end of file
+package restapi.service;
+
+import restapi.event.UserChangedEvent;
+import spring.annotation.Autowired;
+import spring.annotation.Service;
+import restapi.mapper.UserMapper;
+import restapi.pojo.AuthCode;
+import restapi.pojo.User;
+import spring.dic.Initializer;
+import spring.dic.events.EventListener;
+import spring.metrics.MeterRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import static restapi.pojo.AuthCode.*;
+
+@Service
+public class AuthServiceImpl implements AuthService, Initializer {
+    private static final long CREDENTIAL_TTL_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final long REJECTED_CREDENTIAL_TTL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final int MAX_CACHED_CREDENTIALS = 10_000;
+
+    @Autowired
+    UserMapper userMapper;
+    @Autowired
+    MeterRegistry meterRegistry;
+    private final CredentialCache credentialCache = new CredentialCache(CREDENTIAL_TTL_NANOS, REJECTED_CREDENTIAL_TTL_NANOS, MAX_CACHED_CREDENTIALS);
+
+    @Override
+    public void init() {
+        meterRegistry.gauge("auth_credential_cache_size", "Verified credentials currently cached.", credentialCache::size);
+    }
+
+    @Override
+    public AuthCode validateBasicAuthentication(String basicAuthHeaderValue, String role) {
+        if (basicAuthHeaderValue == null || !basicAuthHeaderValue.toLowerCase().startsWith("basic"))
+            return UNAUTH;
+
+        CredentialCache.Credential credential = credentialCache.get(basicAuthHeaderValue);
+        if (credential == null) {
+            credential = verify(basicAuthHeaderValue);
+            if (credential == null)
+                return UNAUTH;
+        }
+
+        if (credential == CredentialCache.REJECTED)
+            return UNAUTH;
+
+        String userRole = credential.role();
+        if (userRole == null || !userRole.equals("ADMIN") && "ADMIN".equals(role))
+            return FORBIDDEN;
+
+        return OK;
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        credentialCache.invalidate(event.id, event.username);
+    }
+
+    /**
+     * Checks the header against the stored password and caches the outcome; malformed headers are
+     * cheap to reject and return {@code null} without being cached.
+     */
+    private CredentialCache.Credential verify(String basicAuthHeaderValue) {
+        String base64Credentials = basicAuthHeaderValue.substring("Basic".length()).trim();
+        byte[] credDecoded;
+        try {
+            credDecoded = Base64.getDecoder().decode(base64Credentials);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        String credentials = new String(credDecoded, StandardCharsets.UTF_8);
+        String[] values = credentials.split(":", 2);
+        if (values.length != 2)
+            return null;
+
+        String username = values[0];
+        String password = values[1];
+        User user = userMapper.findUserByUsername(username);
+        if (user == null || !user.username.equals(username)) {
+            PasswordHasher.matchDummy(password);
+            credentialCache.putRejected(basicAuthHeaderValue, username);
+            return CredentialCache.REJECTED;
+        }
+
+        if (!PasswordHasher.matches(password, user.password)) {
+            credentialCache.putRejected(basicAuthHeaderValue, username);
+            return CredentialCache.REJECTED;
+        }
+
+        if (PasswordHasher.needsRehash(user.password))
+            userMapper.updatePassword(user.id, PasswordHasher.hash(password));
+
+        CredentialCache.Credential credential = new CredentialCache.Credential(user.id, user.username, user.role);
+        credentialCache.put(basicAuthHeaderValue, credential);
+        return credential;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,104 @@
+package restapi.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verified credentials keyed by the SHA-256 of the Authorization header, so neither the header nor
+ * the password is kept in memory. Entries expire after a short TTL and the cache never holds more
+ * than {@code maxSize} of them.
+ * <p>
+ * Rejected headers are remembered as {@link #REJECTED} for a shorter TTL, so repeating a wrong
+ * password doesn't cost a password hash computation each time.
+ */
+public class CredentialCache {
+    public static final Credential REJECTED = new Credential(-1, null, null);
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final long rejectedTtlNanos;
+    private final int maxSize;
+
+    public CredentialCache(long ttlNanos, long rejectedTtlNanos, int maxSize) {
+        this.ttlNanos = ttlNanos;
+        this.rejectedTtlNanos = rejectedTtlNanos;
+        this.maxSize = maxSize;
+    }
+
+    public Credential get(String authorizationHeader) {
+        String key = key(authorizationHeader);
+        Entry entry = entries.get(key);
+        if (entry == null)
+            return null;
+
+        if (System.nanoTime() - entry.expiresAt > 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+
+        return entry.credential;
+    }
+
+    public void put(String authorizationHeader, Credential credential) {
+        put(authorizationHeader, new Entry(credential, credential.username(), System.nanoTime() + ttlNanos));
+    }
+
+    /**
+     * Remembers that the header failed verification for {@code username}, which may not exist.
+     */
+    public void putRejected(String authorizationHeader, String username) {
+        put(authorizationHeader, new Entry(REJECTED, username, System.nanoTime() + rejectedTtlNanos));
+    }
+
+    /**
+     * Drops every entry of the user with the given id or username, rejections included.
+     */
+    public void invalidate(int id, String username) {
+        entries.values().removeIf(entry -> entry.credential.id() == id || entry.username.equals(username));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private void put(String authorizationHeader, Entry entry) {
+        if (entries.size() >= maxSize)
+            evict();
+
+        entries.put(key(authorizationHeader), entry);
+    }
+
+    private void evict() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> now - entry.expiresAt > 0);
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static String key(String authorizationHeader) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(authorizationHeader.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Credential(int id, String username, String role) {
+    }
+
+    private record Entry(Credential credential, String username, long expiresAt) {
+    }
+}
@@ -0,0 +1,39 @@
+package restapi.service;
+
+import restapi.event.PostChangedEvent;
+import spring.annotation.Service;
+import spring.dic.events.Async;
+import spring.dic.events.EventListener;
+import spring.server.SseEmitter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes post changes to subscribed clients, so they don't have to poll the full post list.
+ */
+@Service
+public class PostEventStream {
+    private final Set<SseEmitter> emitters = ConcurrentHashMap.newKeySet();
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter();
+        emitters.add(emitter);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        return emitter;
+    }
+
+    /**
+     * Runs off the publishing thread, so a request that changed a post doesn't wait for the event
+     * to be queued to every subscriber.
+     */
+    @Async
+    @EventListener
+    public void onPostChanged(PostChangedEvent event) {
+        SseEmitter.Event changed = new SseEmitter.Event(event.type, event.post != null ? event.post : Map.of("id", event.id));
+        for (SseEmitter emitter : emitters) {
+            emitter.send(changed);
+        }
+    }
+}
@@ -2,28 +2,58 @@ package spring;
 
 import spring.config.ClassInjector;
 import spring.config.MappersConfig;
+import spring.dic.ApplicationContext;
 import spring.exception.BeanCreationException;
 import spring.server.TomcatServer;
+import spring.server.WebServer;
+import spring.server.nio.NioServer;
+import spring.startup.StartupProfiler;
 
 import java.lang.reflect.InvocationTargetException;
 
 public class SpringApplication {
     public static void run(Class<?> primaryClass, String[] args) {
-        ClassInjector injector = new ClassInjector(primaryClass);
+        StartupProfiler profiler = new StartupProfiler();
+        ClassInjector injector = new ClassInjector(primaryClass, profiler);
         MappersConfig config = new MappersConfig();
-        config.configure(injector.getContext());
-        config.createMappers(injector.getContext(), injector.classes);
-        try {
-            injector.registerClasses();
-        } catch (BeanCreationException | InvocationTargetException | IllegalAccessException e) {
-            throw new RuntimeException(e);
-        }
+        profiler.time("mappers", () -> {
+            config.configure(injector.getContext());
+            config.createMappers(injector.getContext(), injector.classes);
+        });
+
+        profiler.time("controllers", () -> {
+            try {
+                injector.registerClasses();
+            } catch (BeanCreationException | InvocationTargetException | IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+
+            injector.writeSnapshot();
+        });
 
-        TomcatServer server = new TomcatServer(injector.getContext());
+        profiler.time("warm-up", injector::warmUp);
+
+        profiler.time("journal-replay", () -> {
+            injector.createListeners();
+            injector.getContext().getEventPublisher().replayJournal();
+        });
+
+        WebServer server = createServer(injector.getContext());
         try {
-            server.startServer();
+            profiler.time("server", server::start);
+            profiler.finish(injector.getContext());
+            server.await();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
+
+    private static WebServer createServer(ApplicationContext context) {
+        String engine = context.getProperty("spring.server.engine", "tomcat");
+        return switch (engine) {
+            case "tomcat" -> new TomcatServer(context);
+            case "nio" -> new NioServer(context);
+            default -> throw new IllegalArgumentException("Unknown server engine: " + engine);
+        };
+    }
 }
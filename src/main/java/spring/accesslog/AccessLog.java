@@ -0,0 +1,147 @@
+package spring.accesslog;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Access log backed by a preallocated ring of primitive fields. Request threads claim a slot with
+ * a CAS and fill it in place; when the ring is full the entry is dropped instead of waiting. A
+ * daemon thread formats the entries and writes them to a rolling file in batches.
+ */
+public class AccessLog implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(AccessLog.class.getName());
+    private static final VarHandle PUBLISHED = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int MAX_BATCH = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int mask;
+    private final long[] published;
+    private final long[] timestamps;
+    private final long[] latencies;
+    private final long[] bytes;
+    private final int[] statuses;
+    private final String[] methods;
+    private final String[] routes;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final RollingFileWriter writer;
+    private final Thread drainer;
+    private volatile boolean running = true;
+
+    public AccessLog(Path file, int bufferSize, long maxFileSize, int maxFiles) throws IOException {
+        if (Integer.bitCount(bufferSize) != 1)
+            throw new IllegalArgumentException("Buffer size must be a power of 2: " + bufferSize);
+
+        mask = bufferSize - 1;
+        published = new long[bufferSize];
+        Arrays.fill(published, -1);
+        timestamps = new long[bufferSize];
+        latencies = new long[bufferSize];
+        bytes = new long[bufferSize];
+        statuses = new int[bufferSize];
+        methods = new String[bufferSize];
+        routes = new String[bufferSize];
+        writer = new RollingFileWriter(file, maxFileSize, maxFiles);
+        drainer = new Thread(this::drain, "access-log");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * Records a request; {@code route} should be the route template so the log doesn't keep
+     * per-request strings alive.
+     */
+    public void log(long timestampMillis, String method, String route, int status, long bytesWritten, long latencyNanos) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed.get() > mask) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) sequence & mask;
+        timestamps[index] = timestampMillis;
+        latencies[index] = latencyNanos;
+        bytes[index] = bytesWritten;
+        statuses[index] = status;
+        methods[index] = method;
+        routes[index] = route;
+        PUBLISHED.setRelease(published, index, sequence);
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        writer.close();
+    }
+
+    private void drain() {
+        StringBuilder batch = new StringBuilder(MAX_BATCH * 96);
+        long next = consumed.get();
+        while (true) {
+            int count = 0;
+            while (count < MAX_BATCH && (long) PUBLISHED.getAcquire(published, (int) next & mask) == next) {
+                append(batch, (int) next & mask);
+                next++;
+                count++;
+            }
+
+            if (count > 0) {
+                consumed.set(next);
+                flush(batch);
+                continue;
+            }
+
+            if (!running && claimed.get() == next)
+                return;
+
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    private void append(StringBuilder batch, int index) {
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(timestamps[index]), batch);
+        batch.append(' ').append(methods[index])
+                .append(' ').append(routes[index])
+                .append(' ').append(statuses[index])
+                .append(' ').append(bytes[index])
+                .append(' ').append(latencies[index] / 1000).append("us\n");
+        methods[index] = null;
+        routes[index] = null;
+    }
+
+    private void flush(StringBuilder batch) {
+        try {
+            writer.write(batch);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Can't write access log", e);
+        }
+
+        batch.setLength(0);
+    }
+}
@@ -0,0 +1,74 @@
+package spring.accesslog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends to a file and rolls it to {@code file.1 .. file.maxFiles} once it exceeds
+ * {@code maxFileSize} bytes.
+ */
+class RollingFileWriter implements AutoCloseable {
+    private final Path file;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private FileChannel channel;
+    private long size;
+
+    RollingFileWriter(Path file, long maxFileSize, int maxFiles) throws IOException {
+        this.file = file;
+        this.maxFileSize = maxFileSize;
+        this.maxFiles = maxFiles;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+
+        open();
+    }
+
+    void write(CharSequence text) throws IOException {
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(text.toString());
+        if (size > 0 && size + bytes.remaining() > maxFileSize)
+            roll();
+
+        size += bytes.remaining();
+        while (bytes.hasRemaining())
+            channel.write(bytes);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = channel.size();
+    }
+
+    private void roll() throws IOException {
+        channel.close();
+        Files.deleteIfExists(rolled(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path source = rolled(i);
+            if (Files.exists(source))
+                Files.move(source, rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        if (maxFiles > 0)
+            Files.move(file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        else
+            Files.delete(file);
+
+        open();
+    }
+
+    private Path rolled(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+}
@@ -0,0 +1,15 @@
+package spring.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Drops every entry of the named caches after the annotated controller method returned or threw.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CacheEvict {
+
+    String[] value();
+
+}
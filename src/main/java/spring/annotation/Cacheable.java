@@ -0,0 +1,21 @@
+package spring.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Caches the serialized response of a controller method, keyed by route template and bound
+ * arguments.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Cacheable {
+
+    /**
+     * Name of the cache, used by {@link CacheEvict} to invalidate it.
+     */
+    String value();
+
+    long ttlMillis() default 60_000;
+
+}
@@ -0,0 +1,23 @@
+package spring.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Limits how often a route, or every route of a controller, may be called across all clients.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RateLimit {
+
+    /**
+     * Sustained requests per second.
+     */
+    double value();
+
+    /**
+     * Requests allowed in a burst; defaults to one second worth of requests.
+     */
+    int burst() default 0;
+
+}
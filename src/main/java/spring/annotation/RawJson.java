@@ -0,0 +1,15 @@
+package spring.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Projects the rows of a {@code @Select} mapper method straight into the response: the method
+ * returns {@link spring.json.JsonRows}, whose query runs when the response is serialized and
+ * writes each row as a JSON object keyed by column label, without mapping it to an object first.
+ * Use MyBatis' {@code @Options(fetchSize = ...)} to have the driver stream rows as well.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RawJson {
+}
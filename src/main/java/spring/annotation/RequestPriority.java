@@ -0,0 +1,27 @@
+package spring.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Priority of a route, or every route of a controller, when the server sheds load.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RequestPriority {
+
+    Level value();
+
+    enum Level {
+        /**
+         * Never rejected, for health checks and administration needed to recover from overload.
+         */
+        CRITICAL,
+        NORMAL,
+        /**
+         * Only admitted while the server has ample spare concurrency, such as bulk imports.
+         */
+        LOW
+    }
+
+}
@@ -0,0 +1,26 @@
+package spring.annotation;
+
+import java.lang.annotation.*;
+
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Scope {
+    String SINGLETON = "singleton";
+    String PROTOTYPE = "prototype";
+    String REQUEST = "request";
+    String THREAD = "thread";
+    String POOLED = "pooled";
+
+    String value() default SINGLETON;
+
+    /**
+     * Maximum number of live instances when {@link #value} is {@link #POOLED}.
+     */
+    int poolSize() default 8;
+
+    /**
+     * How long a request waits for a free pooled instance before failing.
+     */
+    long poolTimeoutMillis() default 1000;
+}
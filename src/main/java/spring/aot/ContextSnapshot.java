@@ -0,0 +1,53 @@
+package spring.aot;
+
+import spring.server.RouteDefinition;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of class scanning, interface resolution and route discovery, recorded by a
+ * training run so later starts can skip discovery.
+ */
+public class ContextSnapshot {
+    static final int FORMAT_VERSION = 2;
+
+    int formatVersion;
+    String primaryClass;
+    List<String> classes;
+    Map<String, String> implementations;
+    List<RouteDefinition> routes;
+    Map<String, Long> checksums;
+    List<String> scannedDirectories;
+    long listingChecksum;
+
+    ContextSnapshot() {
+    }
+
+    ContextSnapshot(String primaryClass, List<String> classes, Map<String, String> implementations,
+                    List<RouteDefinition> routes, Map<String, Long> checksums, List<String> scannedDirectories,
+                    long listingChecksum) {
+        this.formatVersion = FORMAT_VERSION;
+        this.primaryClass = primaryClass;
+        this.classes = classes;
+        this.implementations = implementations;
+        this.routes = routes;
+        this.checksums = checksums;
+        this.scannedDirectories = scannedDirectories;
+        this.listingChecksum = listingChecksum;
+    }
+
+    public List<String> getClasses() {
+        return classes;
+    }
+
+    public Map<String, String> getImplementations() {
+        return implementations;
+    }
+
+    public List<RouteDefinition> getRoutes(Class<?> controller) {
+        return routes.stream()
+                .filter(route -> route.controller().equals(controller.getName()))
+                .toList();
+    }
+}
@@ -0,0 +1,160 @@
+package spring.aot;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import spring.dic.ApplicationContext;
+import spring.server.RouteDefinition;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes the {@link ContextSnapshot} file configured by {@code spring.aot.snapshot}.
+ * {@code spring.aot.mode} selects the behaviour: {@code off} (default), {@code record} to always
+ * discover and write the snapshot, {@code replay} to use a valid snapshot and never write one, and
+ * {@code auto} to use a valid snapshot or otherwise discover and write a new one.
+ */
+public class SnapshotStore {
+    private static final Logger LOGGER = Logger.getLogger(SnapshotStore.class.getName());
+
+    private final Gson gson = new Gson();
+    private final String mode;
+    private final Path file;
+
+    public SnapshotStore(ApplicationContext applicationContext) {
+        mode = applicationContext.getProperty("spring.aot.mode", "off");
+        file = Path.of(applicationContext.getProperty("spring.aot.snapshot", "spring-aot.json"));
+    }
+
+    public boolean isReplayEnabled() {
+        return mode.equals("replay") || mode.equals("auto");
+    }
+
+    public boolean isRecordEnabled() {
+        return mode.equals("record") || mode.equals("auto");
+    }
+
+    /**
+     * Returns the recorded snapshot, or {@code null} when replay is disabled or the snapshot is
+     * missing, belongs to another application or no longer matches the class files on the classpath.
+     * Besides the checksums of the recorded classes, the listing of class files in the scanned
+     * directories has to match, so a class added since the training run forces discovery again.
+     */
+    public ContextSnapshot load(Class<?> primaryClass, ClassLoader classLoader) {
+        if (!isReplayEnabled() || !Files.isRegularFile(file))
+            return null;
+
+        ContextSnapshot snapshot;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            snapshot = gson.fromJson(reader, ContextSnapshot.class);
+        } catch (IOException | JsonParseException e) {
+            LOGGER.log(Level.WARNING, "Unable to read context snapshot " + file, e);
+            return null;
+        }
+
+        if (snapshot == null || snapshot.formatVersion != ContextSnapshot.FORMAT_VERSION
+                || !primaryClass.getName().equals(snapshot.primaryClass)) {
+            LOGGER.info("Ignoring context snapshot " + file + " recorded for another application or format");
+            return null;
+        }
+
+        for (Map.Entry<String, Long> entry : snapshot.checksums.entrySet()) {
+            Long checksum = checksum(entry.getKey(), classLoader);
+            if (!Objects.equals(entry.getValue(), checksum)) {
+                LOGGER.info("Ignoring stale context snapshot " + file + ", changed class: " + entry.getKey());
+                return null;
+            }
+        }
+
+        if (listingChecksum(snapshot.scannedDirectories) != snapshot.listingChecksum) {
+            LOGGER.info("Ignoring stale context snapshot " + file + ", class files were added or removed");
+            return null;
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Writes the snapshot, checksumming classes through {@code classLoader}, the same loader later
+     * passed to {@link #load}.
+     */
+    public void write(Class<?> primaryClass, ClassLoader classLoader, Collection<Class<?>> classes,
+                      Map<Class<?>, Class<?>> implementations, List<RouteDefinition> routes,
+                      Collection<String> scannedDirectories) {
+        List<String> classNames = classes.stream().map(Class::getName).sorted().toList();
+        Map<String, String> implementationNames = new TreeMap<>();
+        implementations.forEach((i, c) -> implementationNames.put(i.getName(), c.getName()));
+
+        Set<String> checkedClasses = new TreeSet<>(classNames);
+        checkedClasses.add(primaryClass.getName());
+        checkedClasses.addAll(implementationNames.keySet());
+        Map<String, Long> checksums = new TreeMap<>();
+        for (String className : checkedClasses) {
+            Long checksum = checksum(className, classLoader);
+            if (checksum != null)
+                checksums.put(className, checksum);
+        }
+
+        ContextSnapshot snapshot = new ContextSnapshot(primaryClass.getName(), classNames, implementationNames,
+                List.copyOf(routes), checksums, List.copyOf(scannedDirectories), listingChecksum(scannedDirectories));
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            gson.toJson(snapshot, writer);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to write context snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Checksum of the sorted paths of all class files below {@code directories}. Only the directory
+     * listing is read, no class is loaded.
+     */
+    private static long listingChecksum(Collection<String> directories) {
+        List<String> paths = new ArrayList<>();
+        for (String directory : directories) {
+            Path root = Path.of(directory);
+            if (!Files.isDirectory(root))
+                continue;
+
+            try (Stream<Path> files = Files.walk(root)) {
+                files.filter(path -> path.toString().endsWith(".class"))
+                        .forEach(path -> paths.add(path.toString()));
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Unable to list class files in " + root, e);
+                return -1;
+            }
+        }
+
+        Collections.sort(paths);
+        CRC32 crc = new CRC32();
+        for (String path : paths) {
+            crc.update(path.getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+
+        return crc.getValue();
+    }
+
+    private static Long checksum(String className, ClassLoader classLoader) {
+        String resource = className.replace('.', '/') + ".class";
+        try (InputStream in = classLoader.getResourceAsStream(resource)) {
+            if (in == null)
+                return null;
+
+            CRC32 crc = new CRC32();
+            crc.update(in.readAllBytes());
+            return crc.getValue();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
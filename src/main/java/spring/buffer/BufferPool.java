@@ -0,0 +1,150 @@
+package spring.buffer;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool of direct buffers in a few size classes for response bodies that go to a socket channel
+ * without being copied again. Released buffers go back to a bounded queue per size class; whatever
+ * doesn't fit is dropped and left to the garbage collector. Buffers are usually borrowed by the
+ * thread rendering a response and released by the event loop that wrote it, so there are no
+ * per-thread caches: the releasing thread is rarely the next to borrow. Requests larger than
+ * {@link #MAX_BUFFER_SIZE} get a buffer of that size, so large bodies are chains of buffers rather
+ * than one growing array.
+ * <p>
+ * {@link #getInUse()} counts borrowed buffers, which is zero after every response has been
+ * written and is the check to make in tests. With leak detection, a buffer that becomes
+ * unreachable while borrowed is also logged with the stack that borrowed it; that captures a stack
+ * trace per borrow, so it is meant for tests and debugging.
+ */
+public final class BufferPool {
+    private static final Logger LOGGER = Logger.getLogger(BufferPool.class.getName());
+    private static final int[] SIZE_CLASSES = {4 * 1024, 16 * 1024, 64 * 1024};
+    public static final int MAX_BUFFER_SIZE = SIZE_CLASSES[SIZE_CLASSES.length - 1];
+
+    private final List<ArrayBlockingQueue<PooledBuffer>> pooled;
+    private final Cleaner cleaner;
+    private final LongAdder inUse = new LongAdder();
+    private final LongAdder allocated = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+
+    /**
+     * @param maxRetainedBytes bytes each size class keeps pooled
+     */
+    public BufferPool(long maxRetainedBytes, boolean leakDetection) {
+        List<ArrayBlockingQueue<PooledBuffer>> queues = new ArrayList<>(SIZE_CLASSES.length);
+        for (int size : SIZE_CLASSES) {
+            queues.add(new ArrayBlockingQueue<>((int) Math.max(1, Math.min(Integer.MAX_VALUE, maxRetainedBytes / size))));
+        }
+
+        pooled = List.copyOf(queues);
+
+        cleaner = leakDetection ? Cleaner.create() : null;
+    }
+
+    /**
+     * Borrows a cleared buffer of at least {@code capacity} bytes, or of {@link #MAX_BUFFER_SIZE}
+     * when more is asked for.
+     */
+    public PooledBuffer acquire(int capacity) {
+        int sizeClass = sizeClass(capacity);
+        PooledBuffer buffer = pooled.get(sizeClass).poll();
+
+        if (buffer == null)
+            buffer = allocate(sizeClass);
+
+        buffer.acquired();
+        if (buffer.leakRecord() != null)
+            buffer.leakRecord().acquired();
+
+        inUse.increment();
+        return buffer;
+    }
+
+    /**
+     * Buffers borrowed and not yet released.
+     */
+    public long getInUse() {
+        return inUse.sum();
+    }
+
+    /**
+     * Buffers allocated because none was pooled.
+     */
+    public long getAllocated() {
+        return allocated.sum();
+    }
+
+    /**
+     * Borrowed buffers found unreachable by leak detection.
+     */
+    public long getLeaks() {
+        return leaks.sum();
+    }
+
+    void release(PooledBuffer buffer) {
+        buffer.released();
+        if (buffer.leakRecord() != null)
+            buffer.leakRecord().released();
+
+        inUse.decrement();
+        pooled.get(buffer.sizeClass()).offer(buffer);
+    }
+
+    private PooledBuffer allocate(int sizeClass) {
+        allocated.increment();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(SIZE_CLASSES[sizeClass]);
+        if (cleaner == null)
+            return new PooledBuffer(this, buffer, sizeClass, null);
+
+        LeakRecord leakRecord = new LeakRecord(leaks);
+        PooledBuffer pooled = new PooledBuffer(this, buffer, sizeClass, leakRecord);
+        cleaner.register(pooled, leakRecord);
+        return pooled;
+    }
+
+    private static int sizeClass(int capacity) {
+        for (int i = 0; i < SIZE_CLASSES.length - 1; i++) {
+            if (capacity <= SIZE_CLASSES[i])
+                return i;
+        }
+
+        return SIZE_CLASSES.length - 1;
+    }
+
+    /**
+     * Borrow state of a buffer, kept apart from it so the cleaner can run once the buffer is gone.
+     */
+    static final class LeakRecord implements Runnable {
+        private final LongAdder leaks;
+        private volatile Throwable acquiredAt;
+
+        LeakRecord(LongAdder leaks) {
+            this.leaks = leaks;
+        }
+
+        void acquired() {
+            acquiredAt = new Throwable("Pooled buffer acquired here");
+        }
+
+        void released() {
+            acquiredAt = null;
+        }
+
+        @Override
+        public void run() {
+            Throwable leakedAt = acquiredAt;
+            if (leakedAt == null)
+                return;
+
+            leaks.increment();
+            LOGGER.log(Level.SEVERE, "Pooled buffer was garbage collected without being released", leakedAt);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package spring.buffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Direct buffer borrowed from a {@link BufferPool}. The handle stays with its buffer for the
+ * buffer's whole life, so borrowing one allocates nothing once the pool is warm. Whoever holds it
+ * last must {@link #release()} it exactly once and stop using {@link #buffer()} afterwards.
+ */
+public final class PooledBuffer {
+    private final BufferPool pool;
+    private final ByteBuffer buffer;
+    private final int sizeClass;
+    private final BufferPool.LeakRecord leakRecord;
+    private boolean inUse;
+
+    PooledBuffer(BufferPool pool, ByteBuffer buffer, int sizeClass, BufferPool.LeakRecord leakRecord) {
+        this.pool = pool;
+        this.buffer = buffer;
+        this.sizeClass = sizeClass;
+        this.leakRecord = leakRecord;
+    }
+
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    public void release() {
+        pool.release(this);
+    }
+
+    int sizeClass() {
+        return sizeClass;
+    }
+
+    BufferPool.LeakRecord leakRecord() {
+        return leakRecord;
+    }
+
+    void acquired() {
+        inUse = true;
+    }
+
+    void released() {
+        if (!inUse)
+            throw new IllegalStateException("Pooled buffer released twice");
+
+        inUse = false;
+        buffer.clear();
+    }
+}
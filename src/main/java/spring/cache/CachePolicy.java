@@ -0,0 +1,11 @@
+package spring.cache;
+
+/**
+ * Caching behaviour of a route: {@code cacheName} is {@code null} when responses aren't cached and
+ * {@code evictedCaches} is empty when the route doesn't invalidate anything.
+ */
+public record CachePolicy(String cacheName, long ttlNanos, String[] evictedCaches) {
+    public boolean isCacheable() {
+        return cacheName != null;
+    }
+}
@@ -0,0 +1,4 @@
+package spring.cache;
+
+public record CachedResponse(int status, String contentType, byte[] body) {
+}
@@ -0,0 +1,152 @@
+package spring.cache;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serialized controller responses bounded by their total size in bytes. Entries expire after the
+ * TTL of their route and the oldest ones are evicted first once the size limit is reached.
+ * Concurrent misses of the same key wait for a single load.
+ */
+public class ResponseCache {
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final long maxWeight;
+    private final Map<CacheKey, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<CacheKey, CompletableFuture<CachedResponse>> loading = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Queue<CacheKey> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicLong weight = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ResponseCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Returns the cached response for the key or loads it. Only 2xx responses are stored; failures
+     * of a load are rethrown to every caller waiting for it.
+     */
+    public CachedResponse get(String cacheName, String route, Object[] args, long ttlNanos, Loader loader) throws Exception {
+        CacheKey key = new CacheKey(cacheName, route, Arrays.asList(args));
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.expiresAt < 0) {
+            hits.increment();
+            return entry.response;
+        }
+
+        CompletableFuture<CachedResponse> load = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> pending = loading.putIfAbsent(key, load);
+        if (pending != null)
+            return await(pending);
+
+        misses.increment();
+        long generation = generation(cacheName).get();
+        try {
+            CachedResponse response = loader.load();
+            if (response.status() / 100 == 2 && generation(cacheName).get() == generation) {
+                Entry loaded = new Entry(response, System.nanoTime() + ttlNanos, weigh(response));
+                put(key, loaded);
+                // an eviction between the check and the put has already swept the cache without it
+                if (generation(cacheName).get() != generation && entries.remove(key, loaded)) {
+                    weight.addAndGet(-loaded.weight);
+                    // otherwise a later put of the key would leave a second copy that evicts it early
+                    insertionOrder.remove(key);
+                }
+            }
+
+            load.complete(response);
+            return response;
+        } catch (Exception | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    public void evict(String cacheName) {
+        generation(cacheName).incrementAndGet();
+        entries.entrySet().removeIf(e -> {
+            if (!e.getKey().cacheName().equals(cacheName))
+                return false;
+
+            weight.addAndGet(-e.getValue().weight);
+            return true;
+        });
+        insertionOrder.removeIf(key -> key.cacheName().equals(cacheName));
+    }
+
+    public long getWeight() {
+        return weight.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private void put(CacheKey key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        weight.addAndGet(entry.weight - (previous != null ? previous.weight : 0));
+        if (previous == null)
+            insertionOrder.add(key);
+
+        while (weight.get() > maxWeight) {
+            CacheKey oldest = insertionOrder.poll();
+            if (oldest == null)
+                break;
+
+            Entry removed = entries.remove(oldest);
+            if (removed != null)
+                weight.addAndGet(-removed.weight);
+        }
+    }
+
+    private AtomicLong generation(String cacheName) {
+        return generations.computeIfAbsent(cacheName, name -> new AtomicLong());
+    }
+
+    private static CachedResponse await(CompletableFuture<CachedResponse> pending) throws Exception {
+        try {
+            return pending.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause)
+                throw cause;
+
+            throw (Error) e.getCause();
+        }
+    }
+
+    private static long weigh(CachedResponse response) {
+        return response.body().length + ENTRY_OVERHEAD;
+    }
+
+    @FunctionalInterface
+    public interface Loader {
+        CachedResponse load() throws Exception;
+    }
+
+    private record CacheKey(String cacheName, String route, List<Object> args) {
+    }
+
+    private record Entry(CachedResponse response, long expiresAt, long weight) {
+    }
+}
@@ -1,13 +1,22 @@
 package spring.config;
 
+import com.google.gson.Gson;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.io.Resources;
 import spring.annotation.SpringBootApplication;
 import spring.annotation.*;
+import spring.aot.ContextSnapshot;
+import spring.aot.SnapshotStore;
+import spring.cache.ResponseCache;
 import spring.dic.ApplicationContext;
 import spring.dic.ApplicationContextException;
+import spring.dic.InjectionPlan;
+import spring.dic.events.ApplicationListener;
+import spring.dic.events.EventListener;
 import spring.exception.BeanCreationException;
 import spring.server.DispatcherServlet;
+import spring.server.WebMvcConfigurer;
+import spring.startup.StartupProfiler;
 
 import java.io.File;
 import java.io.IOException;
@@ -21,30 +30,47 @@ public class ClassInjector {
             Component.class, Service.class, Controller.class, Configuration.class, RestController.class, ControllerAdvice.class);
     public final Set<Class<?>> classes = new HashSet<>();
     private final Set<Class<?>> excludeClasses = new HashSet<>();
+    private final Map<Class<?>, Class<?>> implementations = new LinkedHashMap<>();
+    private final Set<String> scannedDirectories = new LinkedHashSet<>();
     private final Class<?> primaryClass;
     private final DispatcherServlet dispatcherServlet;
+    private final StartupProfiler profiler;
     private ApplicationContext applicationContext;
+    private SnapshotStore snapshotStore;
+    private ContextSnapshot snapshot;
 
     public ClassInjector(Class<?> primaryClass) {
+        this(primaryClass, new StartupProfiler());
+    }
+
+    public ClassInjector(Class<?> primaryClass, StartupProfiler profiler) {
         this.primaryClass = primaryClass;
+        this.profiler = profiler;
         createContextWithProperties();
         dispatcherServlet = applicationContext.getInstance(DispatcherServlet.class);
     }
 
     private void createContextWithProperties() {
-        Properties properties;
-        try {
-            properties = Resources.getResourceAsProperties("application.properties");
-        } catch (IOException e) {
-            throw new RuntimeException("No properties file found!");
-        }
+        profiler.time("context", () -> {
+            Properties properties;
+            try {
+                properties = Resources.getResourceAsProperties("application.properties");
+            } catch (IOException e) {
+                throw new RuntimeException("No properties file found!");
+            }
 
-        applicationContext = new ApplicationContext(properties);
-        try {
-            injectClasses();
-        } catch (BeanCreationException | InvocationTargetException | IllegalAccessException e) {
-            throw new RuntimeException(e);
-        }
+            applicationContext = new ApplicationContext(properties);
+            applicationContext.setStartupProfiler(profiler);
+            snapshotStore = new SnapshotStore(applicationContext);
+        });
+
+        profiler.time("scan", () -> {
+            try {
+                injectClasses();
+            } catch (BeanCreationException | InvocationTargetException | IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        });
     }
 
     private void injectClasses() throws BeanCreationException, InvocationTargetException, IllegalAccessException {
@@ -64,13 +90,45 @@ public class ClassInjector {
         if (excludedClasses == null)
             return;
 
+        snapshot = snapshotStore.load(primaryClass, ClassLoader.getSystemClassLoader());
+        if (snapshot != null) {
+            loadSnapshot();
+            return;
+        }
+
         String packageName = getPackageName(primaryClass);
-        File dir = new File(packageName);
-        scanClasses(dir);
+        scanDirectory(new File(packageName));
 
         registerInterfacesImplementation();
     }
 
+    private void loadSnapshot() {
+        ClassLoader classLoader = ClassLoader.getSystemClassLoader();
+        try {
+            for (String className : snapshot.getClasses()) {
+                classes.add(classLoader.loadClass(className));
+            }
+
+            for (Map.Entry<String, String> entry : snapshot.getImplementations().entrySet()) {
+                registerImplementation(classLoader.loadClass(entry.getKey()), classLoader.loadClass(entry.getValue()));
+            }
+        } catch (ClassNotFoundException e) {
+            throw new ApplicationContextException("Class from context snapshot not found", e);
+        }
+    }
+
+    /**
+     * Records the discovered classes, implementations and routes when AOT recording is enabled and
+     * this run did not start from a snapshot.
+     */
+    public void writeSnapshot() {
+        if (snapshot != null || !snapshotStore.isRecordEnabled())
+            return;
+
+        snapshotStore.write(primaryClass, ClassLoader.getSystemClassLoader(), classes, implementations,
+                dispatcherServlet.getRoutes(), scannedDirectories);
+    }
+
     private String getPackageName(Class<?> c) {
         String classPath = c.getCanonicalName();
         String className = c.getSimpleName();
@@ -78,6 +136,11 @@ public class ClassInjector {
         return classPath.substring(0, trimIndex);
     }
 
+    private void scanDirectory(File dir) {
+        scannedDirectories.add(dir.getPath());
+        scanClasses(dir);
+    }
+
     private void scanClasses(File dir) {
         File[] files = dir.listFiles();
         if (files == null)
@@ -134,12 +197,12 @@ public class ClassInjector {
         String[] value = componentScan.value();
         if (value == null || value.length == 0) {
             String packageName = getPackageName(c);
-            scanClasses(new File(packageName));
+            scanDirectory(new File(packageName));
             return;
         }
 
         for (String dir : value) {
-            scanClasses(new File(dir));
+            scanDirectory(new File(dir));
         }
     }
 
@@ -148,10 +211,15 @@ public class ClassInjector {
             if (clazz.isInterface())
                 continue;
 
-            Arrays.stream(clazz.getInterfaces()).forEach((i) -> applicationContext.registerImplementation(i, clazz));
+            Arrays.stream(clazz.getInterfaces()).forEach((i) -> registerImplementation(i, clazz));
         }
     }
 
+    private void registerImplementation(Class<?> i, Class<?> clazz) throws ApplicationContextException {
+        applicationContext.registerImplementation(i, clazz);
+        implementations.put(i, clazz);
+    }
+
     public void registerClasses() throws BeanCreationException, InvocationTargetException, IllegalAccessException {
         for (Class<?> c : classes) {
             if (c.isInterface())
@@ -159,6 +227,17 @@ public class ClassInjector {
 
             inject(c);
         }
+
+        dispatcherServlet.initInterceptors();
+        dispatcherServlet.initGson(applicationContext.containsInstance(Gson.class) ? applicationContext.getInstance(Gson.class) : null);
+        dispatcherServlet.initMetrics(applicationContext.getMeterRegistry());
+        dispatcherServlet.initResponseCache(createResponseCache());
+        dispatcherServlet.initRequestBodyLimits(
+                Long.parseLong(applicationContext.getProperty("spring.request.max-body-size", String.valueOf(10L << 20))),
+                Long.parseLong(applicationContext.getProperty("spring.request.stream.max-body-size", String.valueOf(1L << 30))),
+                Long.parseLong(applicationContext.getProperty("spring.request.stream.max-elements", "10000000")));
+        dispatcherServlet.initEventStreams(Long.parseLong(applicationContext.getProperty("spring.sse.heartbeat-interval-ms", "15000")));
+        applicationContext.getMeterRegistry().gauge("sse_open_connections", "Open server-sent event streams.", dispatcherServlet::getOpenEventStreams);
     }
 
     private void inject(Class<?> c) throws BeanCreationException, InvocationTargetException, IllegalAccessException {
@@ -171,13 +250,72 @@ public class ClassInjector {
         if (!isComponent(c))
             return;
 
+        if (c.isAnnotationPresent(ControllerAdvice.class)) {
+            dispatcherServlet.addControllerAdvice(applicationContext.getInstance(c));
+            return;
+        }
+
         Controller controller = c.getDeclaredAnnotation(Controller.class);
         RestController restController = c.getDeclaredAnnotation(RestController.class);
         if (restController == null && controller == null)
             return;
 
+        if (isLazyInitialization()) {
+            dispatcherServlet.addLazyController(c, applicationContext, snapshot != null ? snapshot.getRoutes(c) : null);
+            return;
+        }
+
         Object classInstance = applicationContext.getInstance(c);
-        dispatcherServlet.addController(c, classInstance, applicationContext);
+        if (snapshot != null)
+            dispatcherServlet.addController(c, classInstance, applicationContext, snapshot.getRoutes(c));
+        else
+            dispatcherServlet.addController(c, classInstance, applicationContext);
+    }
+
+    /**
+     * Creates the beans listed in {@code spring.main.lazy-initialization.warm-up} when lazy
+     * initialization is enabled. Entries are route mapping keys or controller class names.
+     */
+    public void warmUp() {
+        if (!isLazyInitialization())
+            return;
+
+        String warmUp = applicationContext.getProperty("spring.main.lazy-initialization.warm-up", "");
+        List<String> entries = Arrays.stream(warmUp.split(","))
+                .map(String::trim)
+                .filter(entry -> !entry.isEmpty())
+                .toList();
+        dispatcherServlet.warmUp(entries);
+    }
+
+    /**
+     * Creates the singleton components that declare event listeners and were not created yet,
+     * typically services only reachable through lazy controllers, so that journaled events replayed
+     * at startup find their listeners.
+     */
+    public void createListeners() {
+        for (Class<?> c : classes) {
+            if (c.isInterface() || !isComponent(c) || !declaresListeners(c) || !InjectionPlan.of(c).isSingleton())
+                continue;
+
+            applicationContext.getInstance(c);
+        }
+    }
+
+    private static boolean declaresListeners(Class<?> c) {
+        if (ApplicationListener.class.isAssignableFrom(c))
+            return true;
+
+        for (Method method : c.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(EventListener.class))
+                return true;
+        }
+
+        return false;
+    }
+
+    private boolean isLazyInitialization() {
+        return Boolean.parseBoolean(applicationContext.getProperty("spring.main.lazy-initialization", "false"));
     }
 
     private boolean isComponent(Class<?> c) {
@@ -192,6 +330,9 @@ public class ClassInjector {
 
     private void extractBeansFromConfig(Class<?> c) throws InvocationTargetException, IllegalAccessException {
         Object instance = applicationContext.getInstance(c);
+        if (instance instanceof WebMvcConfigurer configurer)
+            dispatcherServlet.addConfigurer(configurer);
+
         Method[] methods = c.getDeclaredMethods();
         for (Method method : methods) {
             Bean beanAnnotation = method.getDeclaredAnnotation(Bean.class);
@@ -207,7 +348,7 @@ public class ClassInjector {
     private Object invokeBeanMethod(Method method, Object instance) throws IllegalAccessException, InvocationTargetException {
         Class<?>[] parameterTypes = method.getParameterTypes();
         if (parameterTypes.length == 0)
-            return method.invoke(method, instance);
+            return method.invoke(instance);
 
         Object[] parameters = new Object[parameterTypes.length];
         for (int i = 0; i < parameters.length; i++) {
@@ -215,7 +356,21 @@ public class ClassInjector {
             parameters[i] = parameterInstance;
         }
 
-        return method.invoke(method, instance, parameters);
+        return method.invoke(instance, parameters);
+    }
+
+    private ResponseCache createResponseCache() {
+        long maxWeight = Long.parseLong(applicationContext.getProperty("spring.cache.max-weight", String.valueOf(32L << 20)));
+        ResponseCache responseCache = new ResponseCache(maxWeight);
+        applicationContext.registerInstance(ResponseCache.class, responseCache);
+        applicationContext.getMeterRegistry().register(writer -> writer
+                .family("response_cache_bytes", "gauge", "Size of the cached responses.")
+                .sample("response_cache_bytes", responseCache.getWeight())
+                .family("response_cache_hits_total", "counter", "Responses served from the cache.")
+                .sample("response_cache_hits_total", responseCache.getHits())
+                .family("response_cache_misses_total", "counter", "Responses loaded into the cache.")
+                .sample("response_cache_misses_total", responseCache.getMisses()));
+        return responseCache;
     }
 
     public ApplicationContext getContext() {
@@ -2,21 +2,33 @@ package spring.config;
 
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
+import spring.annotation.RawJson;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
 
 class MapperInvocationHandler implements InvocationHandler {
     private final SqlSessionFactory sqlSessionFactory;
     private final Class<?> mapperClass;
+    private final Map<Method, RawJsonQuery> rawJsonQueries = new HashMap<>();
 
     public MapperInvocationHandler(SqlSessionFactory sqlSessionFactory, Class<?> mapperClass) {
         this.sqlSessionFactory = sqlSessionFactory;
         this.mapperClass = mapperClass;
+        for (Method method : mapperClass.getMethods()) {
+            if (method.isAnnotationPresent(RawJson.class))
+                rawJsonQueries.put(method, new RawJsonQuery(sqlSessionFactory, mapperClass, method));
+        }
     }
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        RawJsonQuery rawJsonQuery = rawJsonQueries.get(method);
+        if (rawJsonQuery != null)
+            return rawJsonQuery.bind(args);
+
         try (SqlSession session = sqlSessionFactory.openSession(true)) {
             Object mapper = session.getMapper(mapperClass);
             return method.invoke(mapper, args);
@@ -1,30 +1,118 @@
 package spring.config;
 
+import spring.cache.CachePolicy;
 import spring.exception.ResponseException;
+import spring.metrics.RouteMetrics;
+import spring.server.HandlerInterceptor;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
 
 public class MethodHandler {
     public Method method;
-    public Object instance;
     public Parameter[] parameters;
+    private final Supplier<Object> instanceFactory;
+    private final Map<Class<? extends Annotation>, Annotation> annotations = new HashMap<>();
+    private HandlerInterceptor[] interceptors = new HandlerInterceptor[0];
+    private RouteMetrics metrics;
+    private String routeTemplate;
+    private CachePolicy cachePolicy;
+    private volatile Object instance;
 
     public MethodHandler(Method method, Object instance) {
+        this(method, () -> instance);
+    }
+
+    /**
+     * The factory is called once, on the first {@link #getInstance()}; concurrent first calls wait
+     * for that single creation.
+     */
+    public MethodHandler(Method method, Supplier<Object> instanceFactory) {
         this.method = method;
-        this.instance = instance;
+        this.instanceFactory = instanceFactory;
         parameters = method.getParameters();
+        for (Annotation annotation : method.getDeclaringClass().getAnnotations()) {
+            annotations.put(annotation.annotationType(), annotation);
+        }
+
+        for (Annotation annotation : method.getAnnotations()) {
+            annotations.put(annotation.annotationType(), annotation);
+        }
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public Class<?> getBeanType() {
+        return method.getDeclaringClass();
+    }
+
+    /**
+     * Annotation of the handler method, or of its controller class when the method doesn't have it.
+     */
+    public <A extends Annotation> A getAnnotation(Class<A> annotationType) {
+        return annotationType.cast(annotations.get(annotationType));
+    }
+
+    public HandlerInterceptor[] getInterceptors() {
+        return interceptors;
+    }
+
+    public void setInterceptors(HandlerInterceptor[] interceptors) {
+        this.interceptors = interceptors;
+    }
+
+    public Object getInstance() {
+        Object result = instance;
+        if (result != null)
+            return result;
+
+        synchronized (this) {
+            if (instance == null)
+                instance = instanceFactory.get();
+
+            return instance;
+        }
+    }
+
+    /**
+     * Path template of the route, such as {@code /posts/{id}}.
+     */
+    public String getRouteTemplate() {
+        return routeTemplate;
+    }
+
+    public void setRouteTemplate(String routeTemplate) {
+        this.routeTemplate = routeTemplate;
+    }
+
+    public CachePolicy getCachePolicy() {
+        return cachePolicy;
+    }
+
+    public void setCachePolicy(CachePolicy cachePolicy) {
+        this.cachePolicy = cachePolicy;
+    }
+
+    public RouteMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(RouteMetrics metrics) {
+        this.metrics = metrics;
     }
 
     public Object invoke(Object[] args) throws InvocationTargetException, IllegalAccessException {
-        Object invoked;
         try {
-            invoked = method.invoke(instance, args);
-        } catch (Exception e) {
-            throw new ResponseException(400, "Bad Req msg test"); // todo exceptions handling
+            return method.invoke(getInstance(), args);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseException(400, "Invalid arguments for " + method.getName());
         }
-
-        return invoked;
     }
 }
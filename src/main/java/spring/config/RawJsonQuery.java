@@ -0,0 +1,158 @@
+package spring.config;
+
+import com.google.gson.stream.JsonWriter;
+import org.apache.ibatis.exceptions.ExceptionFactory;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import spring.json.JsonRows;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.function.Supplier;
+
+/**
+ * Runs the statement of a {@link spring.annotation.RawJson} mapper method and writes its result
+ * set as JSON. Column labels and how each column is read are resolved from the first result and
+ * kept for the statement, so a row costs one {@code ResultSet} getter per column and whatever the
+ * driver allocates for string values.
+ */
+class RawJsonQuery {
+    private enum Kind {LONG, DOUBLE, DECIMAL, BOOLEAN, STRING}
+
+    private record Column(String label, Kind kind) {
+    }
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final MappedStatement statement;
+    private final ParamNameResolver paramNameResolver;
+    private volatile Column[] columns;
+
+    RawJsonQuery(SqlSessionFactory sqlSessionFactory, Class<?> mapperClass, Method method) {
+        Configuration configuration = sqlSessionFactory.getConfiguration();
+        String id = mapperClass.getName() + "." + method.getName();
+        if (method.getReturnType() != JsonRows.class)
+            throw new IllegalStateException("Raw JSON mapper method " + id + " must return " + JsonRows.class.getSimpleName());
+
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.statement = configuration.getMappedStatement(id);
+        if (statement.getSqlCommandType() != SqlCommandType.SELECT)
+            throw new IllegalStateException("Raw JSON mapper method " + id + " must be a select");
+
+        this.paramNameResolver = new ParamNameResolver(configuration, method);
+    }
+
+    JsonRows bind(Object[] args) {
+        Object parameter = ParamNameResolver.wrapToMapIfCollection(paramNameResolver.getNamedParams(args), null);
+        return new JsonRows((out, emptyResult) -> write(out, parameter, emptyResult));
+    }
+
+    private void write(JsonWriter out, Object parameter, Supplier<? extends Exception> emptyResult) throws IOException {
+        BoundSql boundSql = statement.getBoundSql(parameter);
+        try (SqlSession session = sqlSessionFactory.openSession(true);
+             PreparedStatement ps = session.getConnection().prepareStatement(boundSql.getSql(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            if (statement.getFetchSize() != null)
+                ps.setFetchSize(statement.getFetchSize());
+
+            if (statement.getTimeout() != null)
+                ps.setQueryTimeout(statement.getTimeout());
+
+            statement.getConfiguration().newParameterHandler(statement, parameter, boundSql).setParameters(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                boolean empty = !rs.next();
+                if (empty && emptyResult != null)
+                    throw new JsonRows.EmptyResultException(emptyResult.get());
+
+                Column[] columns = columns(rs.getMetaData());
+                out.beginArray();
+                if (!empty) {
+                    do {
+                        writeRow(out, rs, columns);
+                    } while (rs.next());
+                }
+
+                out.endArray();
+            }
+        } catch (SQLException e) {
+            throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
+        }
+    }
+
+    private static void writeRow(JsonWriter out, ResultSet rs, Column[] columns) throws IOException, SQLException {
+        out.beginObject();
+        for (int i = 0; i < columns.length; i++) {
+            Column column = columns[i];
+            out.name(column.label());
+            switch (column.kind()) {
+                case LONG -> {
+                    long value = rs.getLong(i + 1);
+                    if (rs.wasNull())
+                        out.nullValue();
+                    else
+                        out.value(value);
+                }
+                case DOUBLE -> {
+                    double value = rs.getDouble(i + 1);
+                    if (rs.wasNull())
+                        out.nullValue();
+                    else
+                        out.value(value);
+                }
+                case BOOLEAN -> {
+                    boolean value = rs.getBoolean(i + 1);
+                    if (rs.wasNull())
+                        out.nullValue();
+                    else
+                        out.value(value);
+                }
+                case DECIMAL -> out.value(rs.getBigDecimal(i + 1));
+                case STRING -> out.value(rs.getString(i + 1));
+            }
+        }
+
+        out.endObject();
+    }
+
+    /**
+     * Column layout of the statement; resolved again only if the column count changes, which
+     * covers {@code SELECT *} after a column was added or dropped.
+     */
+    private Column[] columns(ResultSetMetaData metaData) throws SQLException {
+        Column[] cached = columns;
+        int count = metaData.getColumnCount();
+        if (cached != null && cached.length == count)
+            return cached;
+
+        Column[] resolved = new Column[count];
+        for (int i = 0; i < count; i++) {
+            resolved[i] = new Column(metaData.getColumnLabel(i + 1), kind(metaData, i + 1));
+        }
+
+        columns = resolved;
+        return resolved;
+    }
+
+    /**
+     * Integers are read as longs except unsigned {@code BIGINT}, which may not fit; types without
+     * a JSON counterpart, such as dates, are written as the driver's string value.
+     */
+    private static Kind kind(ResultSetMetaData metaData, int column) throws SQLException {
+        return switch (metaData.getColumnType(column)) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER -> Kind.LONG;
+            case Types.BIGINT -> metaData.isSigned(column) ? Kind.LONG : Kind.DECIMAL;
+            case Types.REAL, Types.FLOAT, Types.DOUBLE -> Kind.DOUBLE;
+            case Types.DECIMAL, Types.NUMERIC -> Kind.DECIMAL;
+            case Types.BIT, Types.BOOLEAN -> Kind.BOOLEAN;
+            default -> Kind.STRING;
+        };
+    }
+}
@@ -1,28 +1,48 @@
 package spring.dic;
 
-import spring.dic.annotation.Inject;
-import spring.dic.annotation.Named;
+import spring.annotation.Scope;
 import spring.dic.annotation.Default;
-import spring.dic.annotation.Lazy;
 import spring.dic.events.*;
 import spring.dic.events.EventListener;
+import spring.dic.events.journal.EventJournal;
+import spring.dic.events.ring.ProducerType;
+import spring.dic.events.ring.RingBufferEventBus;
+import spring.dic.events.ring.WaitStrategy;
+import spring.dic.scope.*;
+import spring.metrics.MeterRegistry;
+import spring.startup.StartupProfiler;
 import org.mockito.Mockito;
 
+import java.io.IOException;
 import java.lang.reflect.*;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ApplicationContext {
     private final Map<String, Object> stringInstances = new HashMap<>();
-    private final Map<Class<?>, Object> classInstances = new HashMap<>();
-    private final Map<Class<?>, Class<?>> implementationInstances = new HashMap<>();
-    private final Set<Class<?>> dependantClasses = new HashSet<>();
+    private final Map<Class<?>, Object> classInstances = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Class<?>> implementationInstances = new ConcurrentHashMap<>();
+    private final ThreadLocal<Set<Class<?>>> dependantClasses = ThreadLocal.withInitial(HashSet::new); // beans the current thread is creating
+    private final Map<String, BeanScope> scopes = new ConcurrentHashMap<>();
+    private final PooledScope pooledScope = new PooledScope();
     private final ApplicationEventPublisher publisher = new ApplicationEventPublisher();
+    private final MeterRegistry meterRegistry = new MeterRegistry();
+    private volatile StartupProfiler startupProfiler;
 
     public ApplicationContext() {
+        scopes.put(Scope.REQUEST, new RequestScope());
+        scopes.put(Scope.THREAD, new ThreadScope());
+        scopes.put(Scope.POOLED, pooledScope);
+        classInstances.put(ApplicationEventPublisher.class, publisher);
+        classInstances.put(MeterRegistry.class, meterRegistry);
+        registerPoolMetrics();
     }
 
     public ApplicationContext(Properties properties) {
+        this();
         properties.forEach((k, v) -> stringInstances.put((String) k, v));
+        configureEvents();
     }
 
     public Object getInstance(String key) throws ApplicationContextException {
@@ -33,6 +53,11 @@ public class ApplicationContext {
         return instance;
     }
 
+    public String getProperty(String key, String defaultValue) {
+        Object value = stringInstances.get(key);
+        return value != null ? value.toString() : defaultValue;
+    }
+
     public <T> T getInstance(Class<T> c) {
         Object instance = classInstances.get(c);
         if (instance != null)
@@ -42,24 +67,81 @@ public class ApplicationContext {
         if (classImplementation == null)
             classImplementation = c;
 
-        instance = classInstances.get(classImplementation);
-        if (instance == null) {
-            try {
-                instance = createInstance(c, classImplementation);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+        InjectionPlan plan = InjectionPlan.of(classImplementation);
+        if (!plan.isSingleton())
+            return (T) getScopedInstance(classImplementation, plan.getScope());
+
+        synchronized (this) {
+            instance = classInstances.get(classImplementation);
+            if (instance == null) {
+                try {
+                    instance = createInstance(classImplementation, classImplementation);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+
+                classInstances.put(classImplementation, instance);
+                setListeners(instance);
             }
+
+            classInstances.put(c, instance);
         }
 
-        classInstances.put(c, instance);
-        setListeners(instance);
         return (T) instance;
     }
 
+    /**
+     * Resolves a dependency for an injection point. Beans living in a request, thread or pooled
+     * scope are injected as a proxy that looks up the instance of the current scope on every call.
+     */
+    public Object resolveDependency(Class<?> c) {
+        if (classInstances.containsKey(c))
+            return classInstances.get(c);
+
+        Class<?> classImplementation = getImplementation(c);
+        if (classImplementation == null)
+            classImplementation = c;
+
+        String scope = InjectionPlan.of(classImplementation).getScope();
+        if (Scope.SINGLETON.equals(scope) || Scope.PROTOTYPE.equals(scope))
+            return getInstance(c);
+
+        return Mockito.mock(c, invocation -> {
+            try {
+                return invocation.getMethod().invoke(getInstance(c), invocation.getArguments());
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    public ApplicationEventPublisher getEventPublisher() {
+        return publisher;
+    }
+
+    public MeterRegistry getMeterRegistry() {
+        return meterRegistry;
+    }
+
     public void decorateInstance(Object o) throws Exception {
         injectFields(o);
     }
 
+    public void registerScope(String name, BeanScope scope) {
+        if (Scope.SINGLETON.equals(name) || Scope.PROTOTYPE.equals(name))
+            throw new ApplicationContextException("Can't replace built-in scope: " + name);
+
+        scopes.put(name, scope);
+    }
+
+    public void setStartupProfiler(StartupProfiler startupProfiler) {
+        this.startupProfiler = startupProfiler;
+    }
+
+    public Map<Class<?>, PoolStatistics> getPoolStatistics() {
+        return pooledScope.getStatistics();
+    }
+
     public void registerInstance(String key, Object instance) {
         if (!stringInstances.containsKey(key))
             stringInstances.put(key, instance);
@@ -72,9 +154,12 @@ public class ApplicationContext {
         implementationInstances.put(c, subClass);
     }
 
+    public boolean containsInstance(Class<?> c) {
+        return classInstances.containsKey(c);
+    }
+
     public void registerInstance(Class<?> c, Object instance) {
-        if (!classInstances.containsKey(c))
-            classInstances.put(c, instance);
+        classInstances.putIfAbsent(c, instance);
     }
 
     public void registerInstance(Object instance) {
@@ -105,18 +190,111 @@ public class ApplicationContext {
         return classImplementation;
     }
 
+    private Object getScopedInstance(Class<?> classImplementation, String scopeName) {
+        try {
+            if (Scope.PROTOTYPE.equals(scopeName))
+                return createScopedInstance(classImplementation);
+
+            BeanScope scope = scopes.get(scopeName);
+            if (scope == null)
+                throw new ApplicationContextException("No scope registered for name: " + scopeName);
+
+            return scope.get(classImplementation, () -> createScopedInstance(classImplementation));
+        } catch (ApplicationContextException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Scoped beans are created without holding the context's lock; circular dependencies are tracked
+     * per thread, so threads creating beans of their own scope don't wait for each other.
+     */
+    private Object createScopedInstance(Class<?> classImplementation) throws Exception {
+        return createInstance(classImplementation, classImplementation);
+    }
+
     private <T> Object createInstance(Class<T> c, Class<?> classImplementation) throws Exception {
+        Set<Class<?>> dependantClasses = this.dependantClasses.get();
         if (dependantClasses.contains(classImplementation))
             throw new ApplicationContextException("Circular dependency class: " + classImplementation);
 
+        StartupProfiler profiler = startupProfiler;
+        if (profiler != null)
+            profiler.beanCreationStarted(classImplementation);
+
         dependantClasses.add(classImplementation);
-        Object instance = initializeClass(c);
-        dependantClasses.remove(classImplementation);
-        return instance;
+        try {
+            return initializeClass(c);
+        } finally {
+            dependantClasses.remove(classImplementation);
+            if (profiler != null)
+                profiler.beanCreationFinished(classImplementation);
+        }
+    }
+
+    private void configureEvents() {
+        String executorType = getProperty("spring.events.async.executor", "pool");
+        int poolSize = Integer.parseInt(getProperty("spring.events.async.pool-size",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int queueCapacity = Integer.parseInt(getProperty("spring.events.async.queue-capacity", "10000"));
+        publisher.configureAsync(executorType, poolSize, queueCapacity);
+        configureJournal();
+
+        String bus = getProperty("spring.events.bus", "direct");
+        if (bus.equals("direct"))
+            return;
+
+        if (!bus.equals("ring"))
+            throw new ApplicationContextException("Unknown event bus: " + bus);
+
+        int bufferSize = Integer.parseInt(getProperty("spring.events.bus.buffer-size", "1024"));
+        ProducerType producerType = ProducerType.valueOf(getProperty("spring.events.bus.producer", "multi").toUpperCase());
+        WaitStrategy waitStrategy = WaitStrategy.of(getProperty("spring.events.bus.wait-strategy", "blocking"));
+        RingBufferEventBus eventBus = new RingBufferEventBus(publisher, bufferSize, producerType, waitStrategy);
+        publisher.setEventBus(eventBus);
+        meterRegistry.gauge("event_bus_remaining_capacity", "Free slots in the event ring buffer.", eventBus::remainingCapacity);
+    }
+
+    private void registerPoolMetrics() {
+        meterRegistry.register(writer -> {
+            Map<Class<?>, PoolStatistics> statistics = getPoolStatistics();
+            if (statistics.isEmpty())
+                return;
+
+            writer.family("bean_pool_active", "gauge", "Pooled bean instances in use.");
+            statistics.forEach((type, stats) -> writer.sample("bean_pool_active", stats.active(), "bean", type.getName()));
+            writer.family("bean_pool_idle", "gauge", "Pooled bean instances available.");
+            statistics.forEach((type, stats) -> writer.sample("bean_pool_idle", stats.idle(), "bean", type.getName()));
+            writer.family("bean_pool_waits_total", "counter", "Acquisitions that had to wait for an instance.");
+            statistics.forEach((type, stats) -> writer.sample("bean_pool_waits_total", stats.waits(), "bean", type.getName()));
+            writer.family("bean_pool_timeouts_total", "counter", "Acquisitions that timed out.");
+            statistics.forEach((type, stats) -> writer.sample("bean_pool_timeouts_total", stats.timeouts(), "bean", type.getName()));
+        });
+    }
+
+    private void configureJournal() {
+        String directory = getProperty("spring.events.journal.dir", null);
+        if (directory == null)
+            return;
+
+        int segmentSize = Integer.parseInt(getProperty("spring.events.journal.segment-size", String.valueOf(64 << 20)));
+        long flushInterval = Long.parseLong(getProperty("spring.events.journal.flush-interval-ms", "10"));
+        try {
+            EventJournal journal = new EventJournal(Path.of(directory), segmentSize, flushInterval);
+            publisher.setJournal(journal);
+            meterRegistry.gauge("event_journal_pending", "Journaled events not yet acknowledged.", journal::getPendingCount);
+        } catch (IOException e) {
+            throw new ApplicationContextException("Can't open event journal in " + directory, e);
+        }
     }
 
     private void setListeners(Object instance) {
         Class<?> clazz = instance.getClass();
+        if (instance instanceof EndOfBatchListener endOfBatchListener)
+            publisher.addEndOfBatchListener(endOfBatchListener);
+
         if (instance instanceof ApplicationListener)
             extractListenerFromMethod(instance, clazz);
         else
@@ -153,48 +331,42 @@ public class ApplicationContext {
         if (instance instanceof Initializer initializer)
             initializer.init();
 
-        classInstances.put(clazz, instance);
         return instance;
     }
 
     private void injectFields(Object instance) throws Exception {
-        Class<?> instanceClass = instance.getClass();
-        Field[] fields = instanceClass.getDeclaredFields();
-        for (Field field : fields) {
-            field.setAccessible(true);
+        InjectionPlan plan = InjectionPlan.of(instance.getClass());
+        for (InjectionPlan.InjectedField field : plan.getInjectedFields()) {
             setField(instance, field);
         }
-    }
 
-    private void setField(Object instance, Field field) throws Exception {
-        Inject injectAnnotation = field.getDeclaredAnnotation(Inject.class);
-        if (injectAnnotation == null)
-            return;
+        for (InjectionPlan.InjectedField field : plan.getAutowiredFields()) {
+            setField(instance, field);
+        }
+    }
 
-        Named namedAnnotation = field.getDeclaredAnnotation(Named.class);
-        Class<?> fieldType = field.getType();
-        Lazy lazyAnnotation = field.getDeclaredAnnotation(Lazy.class);
-        if (lazyAnnotation != null) {
-            Object mockedField = createLazyObject(instance, field, namedAnnotation, fieldType);
+    private void setField(Object instance, InjectionPlan.InjectedField field) throws Exception {
+        if (field.isLazy()) {
+            Object mockedField = createLazyObject(instance, field);
             field.set(instance, mockedField);
             return;
         }
 
-        String fieldName = field.getName();
-        if (namedAnnotation != null) {
-            field.set(instance, getInstance(fieldName));
+        if (field.isNamed()) {
+            field.set(instance, getInstance(field.getName()));
             return;
         }
 
-        Object fieldInstance = dependantClasses.contains(fieldType) ?
-                createLazyObject(instance, field, namedAnnotation, fieldType) : // for circular dependency
-                getInstance(fieldType);
+        Class<?> fieldType = field.getType();
+        Object fieldInstance = dependantClasses.get().contains(fieldType) ?
+                createLazyObject(instance, field) : // for circular dependency
+                resolveDependency(fieldType);
         field.set(instance, fieldInstance);
     }
 
-    private Object createLazyObject(Object instance, Field field, Named namedAnnotation, Class<?> fieldType) {
-        return Mockito.mock(fieldType, invocation -> {
-            Object fieldInstance = namedAnnotation != null ?
+    private Object createLazyObject(Object instance, InjectionPlan.InjectedField field) {
+        return Mockito.mock(field.getType(), invocation -> {
+            Object fieldInstance = field.isNamed() ?
                     getInstance(field.getName()) :
                     getInstance(field.getType());
             field.set(instance, fieldInstance);
@@ -203,46 +375,26 @@ public class ApplicationContext {
     }
 
     private Object createInstance(Class<?> clazz) throws Exception {
-        Constructor<?> constructor = getInjectedConstructor(clazz);
-        Object[] params = getConstructorParameters(constructor);
-        return constructor.newInstance(params);
-    }
-
-    private Constructor<?> getInjectedConstructor(Class<?> clazz) throws ApplicationContextException, NoSuchMethodException {
-        Constructor<?> constructor = null;
-        Constructor<?>[] constructors = clazz.getDeclaredConstructors();
-        for (Constructor<?> ctor : constructors) {
-            ctor.setAccessible(true);
-            Inject injectAnnotation = ctor.getDeclaredAnnotation(Inject.class);
-            if (injectAnnotation == null)
-                continue;
-
-            if (constructor != null)
-                throw new ApplicationContextException("Found more than one constructor with @Inject annotation!");
-
-            constructor = ctor;
-        }
-
-        return constructor != null ? constructor : clazz.getDeclaredConstructor();
+        InjectionPlan plan = InjectionPlan.of(clazz);
+        Object[] params = getConstructorParameters(plan);
+        return plan.newInstance(params);
     }
 
-    private Object[] getConstructorParameters(Constructor<?> constructor) throws Exception {
-        Parameter[] constructorParameters = constructor.getParameters();
-        if (constructorParameters.length == 0)
+    private Object[] getConstructorParameters(InjectionPlan plan) throws Exception {
+        Class<?>[] parameterTypes = plan.getParameterTypes();
+        if (parameterTypes.length == 0)
             return null;
 
-        Object[] parameters = new Object[constructorParameters.length];
-        for (int i = 0; i < constructorParameters.length; i++) {
-            Parameter parameter = constructorParameters[i];
-            Named namedAnnotation = parameter.getDeclaredAnnotation(Named.class);
-            if (namedAnnotation != null) {
-                String namedValue = namedAnnotation.value();
+        String[] parameterNames = plan.getParameterNames();
+        Object[] parameters = new Object[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            String namedValue = parameterNames[i];
+            if (namedValue != null) {
                 parameters[i] = getInstance(namedValue);
                 continue;
             }
 
-            Class<?> parameterType = parameter.getType();
-            parameters[i] = getInstance(parameterType);
+            parameters[i] = getInstance(parameterTypes[i]);
         }
 
         return parameters;
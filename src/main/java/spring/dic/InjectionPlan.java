@@ -0,0 +1,227 @@
+package spring.dic;
+
+import spring.annotation.Autowired;
+import spring.annotation.Scope;
+import spring.dic.annotation.Inject;
+import spring.dic.annotation.Lazy;
+import spring.dic.annotation.Named;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reflection results needed to build and wire instances of a class, resolved once per class
+ * and reused by every later {@link ApplicationContext#getInstance(Class)} and
+ * {@link ApplicationContext#decorateInstance(Object)} call.
+ */
+public final class InjectionPlan {
+    private static final ClassValue<InjectionPlan> PLANS = new ClassValue<>() {
+        @Override
+        protected InjectionPlan computeValue(Class<?> type) {
+            return new InjectionPlan(type);
+        }
+    };
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final Class<?> type;
+    private final String scope;
+    private final MethodHandle constructor;
+    private final ApplicationContextException constructorError;
+    private final Class<?>[] parameterTypes;
+    private final String[] parameterNames;
+    private final InjectedField[] injectedFields;
+    private final InjectedField[] autowiredFields;
+
+    private InjectionPlan(Class<?> type) {
+        this.type = type;
+        Scope scopeAnnotation = type.getDeclaredAnnotation(Scope.class);
+        scope = scopeAnnotation != null ? scopeAnnotation.value() : Scope.SINGLETON;
+        Constructor<?> ctor = null;
+        ApplicationContextException error = null;
+        try {
+            ctor = findInjectedConstructor(type);
+        } catch (ApplicationContextException e) {
+            error = e;
+        }
+
+        constructorError = error;
+        if (ctor == null) {
+            constructor = null;
+            parameterTypes = new Class<?>[0];
+            parameterNames = new String[0];
+        } else {
+            constructor = toFactory(ctor);
+            Parameter[] parameters = ctor.getParameters();
+            parameterTypes = new Class<?>[parameters.length];
+            parameterNames = new String[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                parameterTypes[i] = parameters[i].getType();
+                Named namedAnnotation = parameters[i].getDeclaredAnnotation(Named.class);
+                parameterNames[i] = namedAnnotation != null ? namedAnnotation.value() : null;
+            }
+        }
+
+        List<InjectedField> injected = new ArrayList<>();
+        List<InjectedField> autowired = new ArrayList<>();
+        MethodHandles.Lookup lookup = null;
+        for (Field field : type.getDeclaredFields()) {
+            boolean inject = field.isAnnotationPresent(Inject.class);
+            boolean autowire = field.isAnnotationPresent(Autowired.class);
+            if (!inject && !autowire)
+                continue;
+
+            if (lookup == null)
+                lookup = privateLookup(type);
+
+            InjectedField injectedField = new InjectedField(lookup, field);
+            if (inject)
+                injected.add(injectedField);
+
+            else
+                autowired.add(injectedField);
+        }
+
+        injectedFields = injected.toArray(new InjectedField[0]);
+        autowiredFields = autowired.toArray(new InjectedField[0]);
+    }
+
+    public static InjectionPlan of(Class<?> clazz) {
+        return PLANS.get(clazz);
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public boolean isSingleton() {
+        return Scope.SINGLETON.equals(scope);
+    }
+
+    public Class<?>[] getParameterTypes() {
+        return parameterTypes;
+    }
+
+    /**
+     * Value of the {@link Named} annotation of each constructor parameter, {@code null} where absent.
+     */
+    public String[] getParameterNames() {
+        return parameterNames;
+    }
+
+    public InjectedField[] getInjectedFields() {
+        return injectedFields;
+    }
+
+    public InjectedField[] getAutowiredFields() {
+        return autowiredFields;
+    }
+
+    public Object newInstance(Object[] params) throws Exception {
+        if (constructorError != null)
+            throw constructorError;
+
+        try {
+            return (Object) constructor.invokeExact(params == null ? NO_ARGS : params);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new ApplicationContextException(t);
+        }
+    }
+
+    private static Constructor<?> findInjectedConstructor(Class<?> clazz) throws ApplicationContextException {
+        Constructor<?> constructor = null;
+        for (Constructor<?> ctor : clazz.getDeclaredConstructors()) {
+            if (!ctor.isAnnotationPresent(Inject.class))
+                continue;
+
+            if (constructor != null)
+                throw new ApplicationContextException("Found more than one constructor with @Inject annotation!");
+
+            constructor = ctor;
+        }
+
+        if (constructor != null)
+            return constructor;
+
+        try {
+            return clazz.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new ApplicationContextException("No default or @Inject constructor found for " + clazz, e);
+        }
+    }
+
+    private static MethodHandle toFactory(Constructor<?> ctor) {
+        try {
+            ctor.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflectConstructor(ctor);
+            return handle.asSpreader(Object[].class, ctor.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new ApplicationContextException("Can't access constructor of " + ctor.getDeclaringClass(), e);
+        }
+    }
+
+    private static MethodHandles.Lookup privateLookup(Class<?> type) {
+        try {
+            return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            throw new ApplicationContextException("Can't access members of " + type, e);
+        }
+    }
+
+    public static final class InjectedField {
+        private final String name;
+        private final Class<?> type;
+        private final boolean named;
+        private final boolean lazy;
+        private final VarHandle handle;
+
+        private InjectedField(MethodHandles.Lookup lookup, Field field) {
+            if (Modifier.isFinal(field.getModifiers()))
+                throw new ApplicationContextException("Can't inject final field: " + field);
+
+            name = field.getName();
+            type = field.getType();
+            named = field.isAnnotationPresent(Named.class);
+            lazy = field.isAnnotationPresent(Lazy.class);
+            try {
+                handle = lookup.unreflectVarHandle(field);
+            } catch (IllegalAccessException e) {
+                throw new ApplicationContextException("Can't access field: " + field, e);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        public boolean isNamed() {
+            return named;
+        }
+
+        public boolean isLazy() {
+            return lazy;
+        }
+
+        public void set(Object instance, Object value) {
+            handle.set(instance, value);
+        }
+    }
+}
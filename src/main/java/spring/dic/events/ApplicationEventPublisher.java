@@ -1,16 +1,145 @@
 package spring.dic.events;
 
-import java.util.HashSet;
-import java.util.Set;
+import spring.dic.events.journal.Acknowledgement;
+import spring.dic.events.journal.EventJournal;
+import spring.dic.events.journal.JournalRecord;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class ApplicationEventPublisher {
-    private final Set<Listener> listeners = new HashSet<>();
+    private static final Logger LOGGER = Logger.getLogger(ApplicationEventPublisher.class.getName());
+    private static final ListenerErrorHandler LOGGING_ERROR_HANDLER = (listener, event, error) ->
+            LOGGER.log(Level.SEVERE, "Async listener " + listener.method + " failed for event " + event, error);
+
+    private volatile ListenerIndex index = new ListenerIndex(new Listener[0]);
+    private volatile EndOfBatchListener[] endOfBatchListeners = new EndOfBatchListener[0];
+    private final Map<Listener, SerialExecutor<Delivery>> listenerExecutors = new ConcurrentHashMap<>();
+    private volatile ListenerErrorHandler errorHandler = LOGGING_ERROR_HANDLER;
+    private volatile EventBus eventBus;
+    private volatile EventJournal journal;
+    private String executorType = "pool";
+    private int poolSize = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 10_000;
+    private Executor asyncExecutor;
 
-    public void addListener(Listener listener) {
+    /**
+     * Replaces the listener index with a copy that includes {@code listener}; publishing threads keep
+     * using the index they already read.
+     */
+    public synchronized void addListener(Listener listener) {
         if (listener == null)
             throw new IllegalArgumentException("Listener instance is null!");
 
-        listeners.add(listener);
+        Listener[] current = index.listeners;
+        for (Listener existing : current) {
+            if (existing == listener)
+                return;
+        }
+
+        Listener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        index = new ListenerIndex(updated);
+    }
+
+    public synchronized void addEndOfBatchListener(EndOfBatchListener listener) {
+        EndOfBatchListener[] current = endOfBatchListeners;
+        for (EndOfBatchListener existing : current) {
+            if (existing == listener)
+                return;
+        }
+
+        EndOfBatchListener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        endOfBatchListeners = updated;
+    }
+
+    /**
+     * Configures the executor used for {@link Async} listeners: {@code pool} for a fixed pool of
+     * {@code poolSize} threads or {@code virtual} for a virtual thread per event. Each async listener
+     * buffers at most {@code queueCapacity} pending events.
+     */
+    public synchronized void configureAsync(String executorType, int poolSize, int queueCapacity) {
+        if (asyncExecutor != null)
+            throw new IllegalStateException("Async executor already in use!");
+
+        if (!executorType.equals("pool") && !executorType.equals("virtual"))
+            throw new IllegalArgumentException("Unknown async executor type: " + executorType);
+
+        this.executorType = executorType;
+        this.poolSize = poolSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    public synchronized void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    public void setErrorHandler(ListenerErrorHandler errorHandler) {
+        this.errorHandler = errorHandler != null ? errorHandler : LOGGING_ERROR_HANDLER;
+    }
+
+    /**
+     * Routes published events through {@code eventBus}; {@code null} delivers them on the publishing
+     * thread again.
+     */
+    public void setEventBus(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Journals {@link Durable} events before handing them to async listeners, so they are delivered
+     * at least once across restarts.
+     */
+    public void setJournal(EventJournal journal) {
+        this.journal = journal;
+    }
+
+    public EventJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Delivers events the journal recovered at startup to the async listeners registered so far, so
+     * listener beans have to be created before this runs. Events without such listeners, and events that can't be decoded anymore, are acknowledged and
+     * dropped.
+     */
+    public void replayJournal() {
+        EventJournal journal = this.journal;
+        if (journal == null)
+            return;
+
+        for (JournalRecord record : journal.takeRecovered()) {
+            Object event;
+            try {
+                event = journal.decode(record);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Can't replay journaled event " + record.sequence() + " of type " + record.type(), e);
+                journal.acknowledge(record.sequence());
+                continue;
+            }
+
+            Listener[] listeners = index.getListeners(event.getClass());
+            int asyncListeners = countAsync(listeners);
+            if (asyncListeners == 0) {
+                journal.acknowledge(record.sequence());
+                continue;
+            }
+
+            Acknowledgement acknowledgement = journal.replayed(record, asyncListeners);
+            for (Listener listener : listeners) {
+                if (listener.async)
+                    publishAsync(listener, event, acknowledgement);
+            }
+        }
     }
 
     public void publishEvent(ApplicationEvent event) {
@@ -18,15 +147,189 @@ public class ApplicationEventPublisher {
     }
 
     public void publishEvent(Object event) {
+        EventBus bus = eventBus;
+        if (bus != null) {
+            bus.publish(event);
+            return;
+        }
+
+        try {
+            dispatchEvent(event);
+        } finally {
+            endOfBatch();
+        }
+    }
+
+    /**
+     * Delivers an event to its listeners on the calling thread, bypassing the event bus. Results of
+     * listeners are delivered the same way.
+     */
+    public void dispatchEvent(Object event) {
+        Listener[] listeners = index.getListeners(event.getClass());
+        dispatchEvent(event, listeners, journal(event, listeners));
+    }
+
+    /**
+     * Like {@link #dispatchEvent(Object)} for an event already passed to {@link #journal(Object)},
+     * which acknowledges it through {@code acknowledgement}.
+     */
+    public void dispatchEvent(Object event, Acknowledgement acknowledgement) {
+        dispatchEvent(event, index.getListeners(event.getClass()), acknowledgement);
+    }
+
+    /**
+     * Tells every {@link EndOfBatchListener} that the events dispatched so far form a batch. Called
+     * by event buses after handing the last event of a batch to {@link #dispatchEvent}.
+     */
+    public void endOfBatch() {
+        for (EndOfBatchListener listener : endOfBatchListeners) {
+            listener.onEndOfBatch();
+        }
+    }
+
+    /**
+     * Journals a {@link Durable} event ahead of its delivery, so an event bus can do it on the
+     * publishing thread before queueing the event. Returns {@code null} when nothing was journaled.
+     */
+    public Acknowledgement journal(Object event) {
+        return journal(event, index.getListeners(event.getClass()));
+    }
+
+    private void dispatchEvent(Object event, Listener[] listeners, Acknowledgement acknowledgement) {
         for (Listener listener : listeners) {
-            Class<?> listenerClass = listener.type;
-            Class<?> eventClass = event.getClass();
-            if (!listenerClass.isAssignableFrom(eventClass))
+            if (listener.async) {
+                publishAsync(listener, event, acknowledgement);
                 continue;
+            }
 
             Object result = listener.invoke(event);
             if (result != null)
-                publishEvent(result);
+                dispatchEvent(result);
+        }
+    }
+
+    private Acknowledgement journal(Object event, Listener[] listeners) {
+        EventJournal journal = this.journal;
+        if (journal == null || !event.getClass().isAnnotationPresent(Durable.class))
+            return null;
+
+        int asyncListeners = countAsync(listeners);
+        return asyncListeners > 0 ? journal.append(event, asyncListeners) : null;
+    }
+
+    private static int countAsync(Listener[] listeners) {
+        int count = 0;
+        for (Listener listener : listeners) {
+            if (listener.async)
+                count++;
+        }
+
+        return count;
+    }
+
+    private void publishAsync(Listener listener, Object event, Acknowledgement acknowledgement) {
+        SerialExecutor<Delivery> executor = listenerExecutors.computeIfAbsent(listener,
+                l -> new SerialExecutor<>(getAsyncExecutor(), queueCapacity, Delivery::fail));
+        try {
+            executor.execute(new Delivery(listener, event, acknowledgement));
+        } catch (RejectedExecutionException e) {
+            fail(listener, event, acknowledgement, e);
+        }
+    }
+
+    private void invokeAsync(Listener listener, Object event, Acknowledgement acknowledgement) {
+        Object result;
+        try {
+            result = listener.invoke(event);
+        } catch (Throwable t) {
+            fail(listener, event, acknowledgement, t);
+            return;
+        }
+
+        if (acknowledgement != null)
+            acknowledgement.complete();
+
+        try {
+            if (result != null)
+                dispatchEvent(result);
+        } catch (Throwable t) {
+            errorHandler.handleError(listener, event, t);
+        }
+    }
+
+    /**
+     * Reports a delivery that failed or was rejected. The error handler is where failed events end
+     * up, so the journal acknowledges them afterwards instead of keeping them pending until restart.
+     */
+    private void fail(Listener listener, Object event, Acknowledgement acknowledgement, Throwable error) {
+        try {
+            errorHandler.handleError(listener, event, error);
+        } finally {
+            if (acknowledgement != null)
+                acknowledgement.complete();
+        }
+    }
+
+    /**
+     * An event on its way to an async listener.
+     */
+    private final class Delivery implements Runnable {
+        private final Listener listener;
+        private final Object event;
+        private final Acknowledgement acknowledgement;
+
+        Delivery(Listener listener, Object event, Acknowledgement acknowledgement) {
+            this.listener = listener;
+            this.event = event;
+            this.acknowledgement = acknowledgement;
+        }
+
+        @Override
+        public void run() {
+            invokeAsync(listener, event, acknowledgement);
+        }
+
+        void fail(RejectedExecutionException e) {
+            ApplicationEventPublisher.this.fail(listener, event, acknowledgement, e);
+        }
+    }
+
+    private synchronized Executor getAsyncExecutor() {
+        if (asyncExecutor == null)
+            asyncExecutor = createExecutor();
+
+        return asyncExecutor;
+    }
+
+    private Executor createExecutor() {
+        if (executorType.equals("virtual"))
+            return Executors.newVirtualThreadPerTaskExecutor();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(poolSize, task -> {
+            Thread thread = new Thread(task, "event-async-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static final class ListenerIndex {
+        private final Listener[] listeners;
+        private final ClassValue<Listener[]> listenersByEventType = new ClassValue<>() {
+            @Override
+            protected Listener[] computeValue(Class<?> eventClass) {
+                return Arrays.stream(listeners)
+                        .filter(listener -> listener.type.isAssignableFrom(eventClass))
+                        .toArray(Listener[]::new);
+            }
+        };
+
+        ListenerIndex(Listener[] listeners) {
+            this.listeners = listeners;
+        }
+
+        Listener[] getListeners(Class<?> eventClass) {
+            return listenersByEventType.get(eventClass);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package spring.dic.events;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a listener method, or every listener method of a class, to be invoked on the
+ * publisher's async executor instead of the publishing thread.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface Async {
+}
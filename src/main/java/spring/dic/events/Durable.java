@@ -0,0 +1,15 @@
+package spring.dic.events;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an event class whose deliveries to {@link Async} listeners are written to the event
+ * journal first and replayed after a restart until every async listener has handled them.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Durable {
+}
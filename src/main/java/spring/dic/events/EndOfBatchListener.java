@@ -0,0 +1,12 @@
+package spring.dic.events;
+
+/**
+ * Implemented by listener beans that buffer work across events, e.g. to flush writes or SSE frames
+ * once per batch instead of once per event. Called on the dispatching thread after the last event
+ * of a batch reached every synchronous listener. The {@link spring.dic.events.ring.RingBufferEventBus}
+ * delivers whatever its consumer found published at once as a batch; without an event bus every
+ * published event is a batch of its own.
+ */
+public interface EndOfBatchListener {
+    void onEndOfBatch();
+}
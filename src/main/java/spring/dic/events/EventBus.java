@@ -0,0 +1,15 @@
+package spring.dic.events;
+
+/**
+ * Transport between {@link ApplicationEventPublisher#publishEvent(Object)} and the listeners.
+ * Implementations eventually hand every event to {@link ApplicationEventPublisher#dispatchEvent(Object)},
+ * or journal it first through {@link ApplicationEventPublisher#journal(Object)} and hand it to
+ * {@link ApplicationEventPublisher#dispatchEvent(Object, spring.dic.events.journal.Acknowledgement)},
+ * calling {@link ApplicationEventPublisher#endOfBatch()} after the last event of each batch.
+ */
+public interface EventBus extends AutoCloseable {
+    void publish(Object event);
+
+    @Override
+    void close();
+}
@@ -1,12 +1,18 @@
 package spring.dic.events;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 
 public class Listener {
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object.class);
+
     public Object instance;
     public Method method;
     public Class<?> type;
+    public boolean async;
+    private final MethodHandle invoker;
 
     public Listener(Object instance, Method method) {
         if (instance == null)
@@ -20,17 +26,21 @@ public class Listener {
 
         method.setAccessible(true);
         type = method.getParameterTypes()[0];
+        async = method.isAnnotationPresent(Async.class) || instance.getClass().isAnnotationPresent(Async.class);
         this.method = method;
         this.instance = instance;
+        try {
+            invoker = MethodHandles.lookup().unreflect(method).asType(INVOKER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Can't invoke inaccessible method!");
+        }
     }
 
     public Object invoke(Object event) {
         try {
-            return method.invoke(instance, event);
-        } catch (InvocationTargetException e) {
-            throw new RuntimeException("Underlying method has thrown an exception!");
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException("Can't invoke inaccessible method!");
+            return (Object) invoker.invokeExact(instance, event);
+        } catch (Throwable t) {
+            throw new RuntimeException("Underlying method has thrown an exception!", t);
         }
     }
 }
\ No newline at end of file
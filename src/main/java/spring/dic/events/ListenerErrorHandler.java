@@ -0,0 +1,6 @@
+package spring.dic.events;
+
+@FunctionalInterface
+public interface ListenerErrorHandler {
+    void handleError(Listener listener, Object event, Throwable error);
+}
@@ -0,0 +1,96 @@
+package spring.dic.events;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs tasks one at a time, in submission order, on a shared executor. Keeps the events of a
+ * single async listener ordered while different listeners run in parallel.
+ * <p>
+ * When the shared executor rejects the next task, that task and every task queued behind it are
+ * dropped and each one is passed to the rejection handler, outside the lock.
+ */
+class SerialExecutor<T extends Runnable> {
+    private final Queue<T> tasks = new ArrayDeque<>();
+    private final Executor executor;
+    private final int capacity;
+    private final BiConsumer<T, RejectedExecutionException> rejectionHandler;
+    private T active;
+
+    SerialExecutor(Executor executor, int capacity, BiConsumer<T, RejectedExecutionException> rejectionHandler) {
+        this.executor = executor;
+        this.capacity = capacity;
+        this.rejectionHandler = rejectionHandler;
+    }
+
+    /**
+     * @throws RejectedExecutionException if {@code capacity} tasks are already queued
+     */
+    void execute(T task) {
+        Dropped<T> dropped;
+        synchronized (this) {
+            if (tasks.size() >= capacity)
+                throw new RejectedExecutionException("Listener queue is full!");
+
+            tasks.add(task);
+            if (active != null)
+                return;
+
+            dropped = scheduleNext();
+        }
+
+        reject(dropped);
+    }
+
+    private void run(T task) {
+        try {
+            task.run();
+        } finally {
+            Dropped<T> dropped;
+            synchronized (this) {
+                dropped = scheduleNext();
+            }
+
+            reject(dropped);
+        }
+    }
+
+    /**
+     * Hands the next task to the executor, returning the tasks dropped when it refuses.
+     */
+    private Dropped<T> scheduleNext() {
+        active = tasks.poll();
+        if (active == null)
+            return null;
+
+        T next = active;
+        try {
+            executor.execute(() -> run(next));
+            return null;
+        } catch (RejectedExecutionException e) {
+            List<T> dropped = new ArrayList<>(tasks.size() + 1);
+            dropped.add(next);
+            dropped.addAll(tasks);
+            tasks.clear();
+            active = null;
+            return new Dropped<>(dropped, e);
+        }
+    }
+
+    private void reject(Dropped<T> dropped) {
+        if (dropped == null)
+            return;
+
+        for (T task : dropped.tasks()) {
+            rejectionHandler.accept(task, dropped.cause());
+        }
+    }
+
+    private record Dropped<T>(List<T> tasks, RejectedExecutionException cause) {
+    }
+}
@@ -0,0 +1,24 @@
+package spring.dic.events.journal;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the async listeners a journaled event still has to reach; the event is acknowledged in
+ * the journal once each of them handled it or had its failure passed to the error handler.
+ */
+public class Acknowledgement {
+    private final EventJournal journal;
+    private final long sequence;
+    private final AtomicInteger remaining;
+
+    Acknowledgement(EventJournal journal, long sequence, int listeners) {
+        this.journal = journal;
+        this.sequence = sequence;
+        remaining = new AtomicInteger(listeners);
+    }
+
+    public void complete() {
+        if (remaining.decrementAndGet() == 0)
+            journal.acknowledge(sequence);
+    }
+}
@@ -0,0 +1,417 @@
+package spring.dic.events.journal;
+
+import com.google.gson.Gson;
+import spring.dic.events.ApplicationEvent;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes journaled events in a compact binary form. Fields are written in declaration order,
+ * superclass first, without names: primitives as zig-zag varints or fixed-width values, strings
+ * as length-prefixed UTF-8, enums by name and other objects field by field. Reference values start
+ * with a tag byte telling null, an inline value and a JSON fallback apart. Collections, maps, arrays other than {@code byte[]}, JDK types and values whose
+ * class differs from the declared type fall back to length-prefixed JSON of the declared type.
+ * <p>
+ * Every object starts with a fingerprint of its class's field names and types, so a record written
+ * by a different version of the class fails to decode instead of filling the wrong fields. The
+ * source of an {@link ApplicationEvent} is usually a bean and is not written; replayed events get
+ * the journal as their source.
+ */
+class EventCodec {
+    private static final int NULL = 0;
+    private static final int VALUE = 1;
+    private static final int JSON = 2;
+
+    private static final ClassValue<Layout> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected Layout computeValue(Class<?> type) {
+            return new Layout(type);
+        }
+    };
+
+    private final Gson gson = new Gson();
+    private final Object replaySource;
+
+    EventCodec(Object replaySource) {
+        this.replaySource = replaySource;
+    }
+
+    byte[] encode(Object event) {
+        Output out = new Output();
+        try {
+            writeObject(out, event, LAYOUTS.get(event.getClass()));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Can't encode event " + event, e);
+        }
+
+        return out.toByteArray();
+    }
+
+    Object decode(String type, byte[] payload) throws ReflectiveOperationException {
+        Class<?> eventClass = Class.forName(type, true, Thread.currentThread().getContextClassLoader());
+        Input in = new Input(payload);
+        Object event = readObject(in, LAYOUTS.get(eventClass));
+        if (in.position != payload.length)
+            throw new IllegalStateException("Journaled " + type + " has " + (payload.length - in.position) + " trailing bytes");
+
+        return event;
+    }
+
+    private void writeObject(Output out, Object value, Layout layout) throws IllegalAccessException {
+        out.writeInt(layout.fingerprint);
+        for (Field field : layout.fields) {
+            writeValue(out, field.getType(), field.getGenericType(), field.get(value));
+        }
+    }
+
+    private void writeValue(Output out, Class<?> type, Type genericType, Object value) throws IllegalAccessException {
+        if (type.isPrimitive()) {
+            writePrimitive(out, type, value);
+            return;
+        }
+
+        if (value == null) {
+            out.write(NULL);
+            return;
+        }
+
+        if (!isInline(type, value)) {
+            out.write(JSON);
+            out.writeString(gson.toJson(value, genericType));
+            return;
+        }
+
+        out.write(VALUE);
+        if (type == String.class) {
+            out.writeString((String) value);
+        } else if (isBoxed(type)) {
+            writePrimitive(out, primitive(type), value);
+        } else if (type.isEnum()) {
+            out.writeString(((Enum<?>) value).name());
+        } else if (type == byte[].class) {
+            byte[] bytes = (byte[]) value;
+            out.writeVarint(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        } else {
+            writeObject(out, value, LAYOUTS.get(type));
+        }
+    }
+
+    private static void writePrimitive(Output out, Class<?> type, Object value) {
+        if (type == int.class || type == short.class || type == byte.class)
+            out.writeVarint(zigZag(((Number) value).longValue()));
+        else if (type == long.class)
+            out.writeVarint(zigZag((Long) value));
+        else if (type == boolean.class)
+            out.write((Boolean) value ? 1 : 0);
+        else if (type == char.class)
+            out.writeVarint((Character) value);
+        else if (type == double.class)
+            out.writeLong(Double.doubleToRawLongBits((Double) value));
+        else
+            out.writeInt(Float.floatToRawIntBits((Float) value));
+    }
+
+    private Object readObject(Input in, Layout layout) throws ReflectiveOperationException {
+        int fingerprint = in.readInt();
+        if (fingerprint != layout.fingerprint)
+            throw new IllegalStateException("Journaled " + layout.type.getName() + " was written by a different version of the class");
+
+        Object[] values = new Object[layout.fields.length];
+        for (int i = 0; i < values.length; i++) {
+            Field field = layout.fields[i];
+            values[i] = readValue(in, field.getType(), field.getGenericType());
+        }
+
+        if (layout.recordConstructor != null)
+            return layout.recordConstructor.newInstance(values);
+
+        Object object = layout.allocate();
+        for (int i = 0; i < values.length; i++) {
+            layout.fields[i].set(object, values[i]);
+        }
+
+        if (object instanceof ApplicationEvent)
+            Layout.SOURCE.set(object, replaySource);
+
+        return object;
+    }
+
+    private Object readValue(Input in, Class<?> type, Type genericType) throws ReflectiveOperationException {
+        if (type.isPrimitive())
+            return readPrimitive(in, type);
+
+        int tag = in.read();
+        if (tag == NULL)
+            return null;
+
+        if (tag == JSON)
+            return gson.fromJson(in.readString(), genericType);
+
+        if (tag != VALUE)
+            throw new IllegalStateException("Malformed value tag " + tag + " in journaled event");
+
+        if (type == String.class)
+            return in.readString();
+
+        if (isBoxed(type))
+            return readPrimitive(in, primitive(type));
+
+        if (type.isEnum())
+            return enumConstant(type, in.readString());
+
+        if (type == byte[].class)
+            return in.readBytes(in.readVarint());
+
+        if (!isStructured(type))
+            throw new IllegalStateException("Journaled " + type.getName() + " was not written as JSON");
+
+        return readObject(in, LAYOUTS.get(type));
+    }
+
+    private static Object readPrimitive(Input in, Class<?> type) {
+        if (type == int.class)
+            return (int) unZigZag(in.readVarint());
+        else if (type == long.class)
+            return unZigZag(in.readVarint());
+        else if (type == short.class)
+            return (short) unZigZag(in.readVarint());
+        else if (type == byte.class)
+            return (byte) unZigZag(in.readVarint());
+        else if (type == boolean.class)
+            return in.read() != 0;
+        else if (type == char.class)
+            return (char) in.readVarint();
+        else if (type == double.class)
+            return Double.longBitsToDouble(in.readLong());
+        else
+            return Float.intBitsToFloat(in.readInt());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object enumConstant(Class<?> type, String name) {
+        return Enum.valueOf((Class) type, name);
+    }
+
+    private static boolean isBoxed(Class<?> type) {
+        return type == Integer.class || type == Long.class || type == Short.class || type == Byte.class
+                || type == Boolean.class || type == Character.class || type == Double.class || type == Float.class;
+    }
+
+    private static Class<?> primitive(Class<?> boxed) {
+        return switch (boxed.getSimpleName()) {
+            case "Integer" -> int.class;
+            case "Long" -> long.class;
+            case "Short" -> short.class;
+            case "Byte" -> byte.class;
+            case "Boolean" -> boolean.class;
+            case "Character" -> char.class;
+            case "Double" -> double.class;
+            default -> float.class;
+        };
+    }
+
+    private static boolean isInline(Class<?> type, Object value) {
+        return type == String.class || isBoxed(type) || type.isEnum() || type == byte[].class
+                || isStructured(type) && value.getClass() == type;
+    }
+
+    /**
+     * Concrete application classes are written field by field; everything else goes through JSON.
+     */
+    private static boolean isStructured(Class<?> type) {
+        return !type.isArray() && !type.isInterface() && !Modifier.isAbstract(type.getModifiers())
+                && !type.getName().startsWith("java.") && !type.getName().startsWith("javax.");
+    }
+
+    private static long zigZag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+
+    private static long unZigZag(long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    /**
+     * Fields of a class in encoding order and how to create instances without a constructor.
+     */
+    private static final class Layout {
+        private static final Field SOURCE;
+        private static final Object UNSAFE;
+        private static final Method ALLOCATE_INSTANCE;
+
+        static {
+            try {
+                SOURCE = ApplicationEvent.class.getDeclaredField("source");
+                SOURCE.setAccessible(true);
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                UNSAFE = theUnsafe.get(null);
+                ALLOCATE_INSTANCE = unsafeClass.getMethod("allocateInstance", Class.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final Class<?> type;
+        private final Field[] fields;
+        private final Constructor<?> recordConstructor;
+        private final int fingerprint;
+
+        Layout(Class<?> type) {
+            this.type = type;
+            List<Field> fields = new ArrayList<>();
+            collectFields(type, fields);
+            this.fields = fields.toArray(new Field[0]);
+            int hash = type.getName().hashCode();
+            for (Field field : this.fields) {
+                field.setAccessible(true);
+                hash = 31 * (31 * hash + field.getName().hashCode()) + field.getGenericType().getTypeName().hashCode();
+            }
+
+            fingerprint = hash;
+            if (type.isRecord()) {
+                try {
+                    recordConstructor = type.getDeclaredConstructor(Arrays.stream(type.getRecordComponents())
+                            .map(RecordComponent::getType).toArray(Class<?>[]::new));
+                    recordConstructor.setAccessible(true);
+                } catch (NoSuchMethodException e) {
+                    throw new IllegalStateException(e);
+                }
+            } else {
+                recordConstructor = null;
+            }
+        }
+
+        Object allocate() throws ReflectiveOperationException {
+            return ALLOCATE_INSTANCE.invoke(UNSAFE, type);
+        }
+
+        private static void collectFields(Class<?> type, List<Field> fields) {
+            if (type == null || type == Object.class || type == Record.class)
+                return;
+
+            collectFields(type.getSuperclass(), fields);
+            for (Field field : type.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.equals(SOURCE) || field.isSynthetic())
+                    continue;
+
+                fields.add(field);
+            }
+        }
+    }
+
+    private static final class Output {
+        private byte[] bytes = new byte[128];
+        private int count;
+
+        void write(int b) {
+            ensureCapacity(1);
+            bytes[count++] = (byte) b;
+        }
+
+        void write(byte[] b, int off, int len) {
+            ensureCapacity(len);
+            System.arraycopy(b, off, bytes, count, len);
+            count += len;
+        }
+
+        void writeInt(int value) {
+            ensureCapacity(Integer.BYTES);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                bytes[count++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeVarint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7fL) != 0) {
+                bytes[count++] = (byte) (value & 0x7f | 0x80);
+                value >>>= 7;
+            }
+
+            bytes[count++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length);
+            write(utf8, 0, utf8.length);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, count);
+        }
+
+        private void ensureCapacity(int needed) {
+            if (count + needed > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, count + needed));
+        }
+    }
+
+    private static final class Input {
+        private final byte[] bytes;
+        private int position;
+
+        Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int read() {
+            if (position >= bytes.length)
+                throw new IllegalStateException("Journaled event is truncated");
+
+            return bytes[position++] & 0xff;
+        }
+
+        int readInt() {
+            return read() << 24 | read() << 16 | read() << 8 | read();
+        }
+
+        long readLong() {
+            return (long) readInt() << 32 | readInt() & 0xffffffffL;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0)
+                    return value;
+            }
+
+            throw new IllegalStateException("Malformed varint in journaled event");
+        }
+
+        byte[] readBytes(long length) {
+            if (length < 0 || length > bytes.length - position)
+                throw new IllegalStateException("Journaled event is truncated");
+
+            byte[] value = Arrays.copyOfRange(bytes, position, position + (int) length);
+            position += (int) length;
+            return value;
+        }
+
+        String readString() {
+            return new String(readBytes(readVarint()), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package spring.dic.events.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of durable events kept in memory-mapped segment files. Appends copy the
+ * encoded event into the mapped segment; the segment is forced to disk on every append when the
+ * flush interval is {@code 0}, otherwise once per interval for all appends made in between.
+ * <p>
+ * The highest sequence below which every event was acknowledged is stored in a checkpoint file on
+ * each flush. Segments that contain only acknowledged events are deleted, and events after the
+ * checkpoint are recovered when the journal is opened again.
+ */
+public class EventJournal implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(EventJournal.class.getName());
+    private static final String SEGMENT_PREFIX = "events-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT = "ack.checkpoint";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long flushIntervalMillis;
+    private final EventCodec codec = new EventCodec(this);
+    private final ConcurrentSkipListSet<Long> pending = new ConcurrentSkipListSet<>();
+    private final List<JournalSegment> closedSegments = new ArrayList<>();
+    private final List<Path> recoveredSegments = new ArrayList<>();
+    private final FileChannel checkpoint;
+    private final ScheduledExecutorService flusher;
+    private List<JournalRecord> recovered = new ArrayList<>();
+    private JournalSegment active;
+    private long nextSequence;
+    private long acknowledged;
+    private boolean dirty;
+
+    public EventJournal(Path directory, int segmentSize, long flushIntervalMillis) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        Files.createDirectories(directory);
+        checkpoint = FileChannel.open(directory.resolve(CHECKPOINT),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        acknowledged = readCheckpoint();
+        nextSequence = acknowledged + 1;
+        recover();
+        if (flushIntervalMillis > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "event-journal-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * Appends an event that must reach {@code listeners} async listeners before it is acknowledged.
+     */
+    public Acknowledgement append(Object event, int listeners) {
+        byte[] type = event.getClass().getName().getBytes(StandardCharsets.UTF_8);
+        byte[] payload = codec.encode(event);
+        int recordSize = JournalSegment.recordSize(type, payload);
+        if (recordSize > segmentSize)
+            throw new IllegalArgumentException("Event of " + recordSize + " bytes doesn't fit a journal segment: " + event);
+
+        long sequence;
+        synchronized (this) {
+            if (active == null || active.remaining() < recordSize)
+                roll();
+
+            sequence = nextSequence++;
+            pending.add(sequence);
+            active.write(sequence, type, payload);
+            if (flushIntervalMillis > 0)
+                dirty = true;
+            else
+                active.force();
+        }
+
+        return new Acknowledgement(this, sequence, listeners);
+    }
+
+    public void acknowledge(long sequence) {
+        pending.remove(sequence);
+    }
+
+    /**
+     * Returns the unacknowledged events found when the journal was opened, once; they stay pending
+     * until acknowledged through {@link #replayed(JournalRecord, int)} or {@link #acknowledge(long)}.
+     */
+    public synchronized List<JournalRecord> takeRecovered() {
+        List<JournalRecord> records = recovered;
+        recovered = new ArrayList<>();
+        return records;
+    }
+
+    public Acknowledgement replayed(JournalRecord record, int listeners) {
+        return new Acknowledgement(this, record.sequence(), listeners);
+    }
+
+    public Object decode(JournalRecord record) throws ReflectiveOperationException {
+        return codec.decode(record.type(), record.payload());
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public synchronized void flush() throws IOException {
+        if (dirty) {
+            active.force();
+            dirty = false;
+        }
+
+        long watermark = pending.isEmpty() ? nextSequence - 1 : pending.first() - 1;
+        if (watermark == acknowledged)
+            return;
+
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, watermark);
+        checkpoint.write(buffer, 0);
+        checkpoint.force(false);
+        acknowledged = watermark;
+        deleteAcknowledgedSegments();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (flusher != null)
+            flusher.shutdown();
+
+        flush();
+        if (active != null)
+            active.close();
+
+        checkpoint.close();
+    }
+
+    private void roll() {
+        try {
+            if (active != null) {
+                active.close();
+                closedSegments.add(active);
+            }
+
+            Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence, SEGMENT_SUFFIX));
+            active = JournalSegment.create(path, segmentSize, nextSequence);
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't roll event journal segment in " + directory, e);
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (checkpoint.size() < Long.BYTES)
+            return 0;
+
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        checkpoint.read(buffer, 0);
+        return buffer.getLong(0);
+    }
+
+    private void recover() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+
+        for (Path path : paths) {
+            boolean unacknowledged = false;
+            for (JournalRecord record : JournalSegment.read(path)) {
+                nextSequence = Math.max(nextSequence, record.sequence() + 1);
+                if (record.sequence() <= acknowledged)
+                    continue;
+
+                unacknowledged = true;
+                pending.add(record.sequence());
+                recovered.add(record);
+            }
+
+            if (unacknowledged)
+                recoveredSegments.add(path);
+            else
+                Files.delete(path);
+        }
+    }
+
+    private void deleteAcknowledgedSegments() throws IOException {
+        Iterator<JournalSegment> segments = closedSegments.iterator();
+        while (segments.hasNext()) {
+            JournalSegment segment = segments.next();
+            if (segment.getLastSequence() > acknowledged)
+                break;
+
+            Files.deleteIfExists(segment.getPath());
+            segments.remove();
+        }
+
+        if (!recoveredSegments.isEmpty() && (pending.isEmpty() || pending.first() >= firstSequence()))
+            deleteRecoveredSegments();
+    }
+
+    private long firstSequence() {
+        if (!closedSegments.isEmpty())
+            return closedSegments.get(0).getFirstSequence();
+
+        return active != null ? active.getFirstSequence() : nextSequence;
+    }
+
+    private void deleteRecoveredSegments() throws IOException {
+        for (Path path : recoveredSegments)
+            Files.deleteIfExists(path);
+
+        recoveredSegments.clear();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Event journal flush failed", e);
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package spring.dic.events.journal;
+
+public record JournalRecord(long sequence, String type, byte[] payload) {
+}
@@ -0,0 +1,124 @@
+package spring.dic.events.journal;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A memory-mapped journal file. Each record is laid out as
+ * {@code [int length][long sequence][int crc][short typeLength][type][payload]}, where the length
+ * covers everything after itself and is written last, so a zero length marks the end of the data.
+ */
+class JournalSegment implements AutoCloseable {
+    static final int HEADER_SIZE = Integer.BYTES + Long.BYTES + Integer.BYTES + Short.BYTES;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long firstSequence;
+    private long lastSequence = -1;
+
+    private JournalSegment(Path path, FileChannel channel, MappedByteBuffer buffer, long firstSequence) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.firstSequence = firstSequence;
+    }
+
+    static JournalSegment create(Path path, int size, long firstSequence) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        return new JournalSegment(path, channel, buffer, firstSequence);
+    }
+
+    /**
+     * Reads records up to the end marker or the first torn or corrupt record.
+     */
+    static List<JournalRecord> read(Path path) throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= HEADER_SIZE) {
+                int start = buffer.position();
+                int length = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining())
+                    break;
+
+                try {
+                    long sequence = buffer.getLong();
+                    int crc = buffer.getInt();
+                    byte[] type = new byte[buffer.getShort()];
+                    buffer.get(type);
+                    byte[] payload = new byte[length - (HEADER_SIZE - Integer.BYTES) - type.length];
+                    buffer.get(payload);
+                    if (crc != checksum(type, payload))
+                        break;
+
+                    records.add(new JournalRecord(sequence, new String(type, StandardCharsets.UTF_8), payload));
+                } catch (BufferUnderflowException | NegativeArraySizeException e) {
+                    break;
+                }
+
+                buffer.position(start + Integer.BYTES + length);
+            }
+        }
+
+        return records;
+    }
+
+    static int recordSize(byte[] type, byte[] payload) {
+        return HEADER_SIZE + type.length + payload.length;
+    }
+
+    int remaining() {
+        return buffer.remaining();
+    }
+
+    void write(long sequence, byte[] type, byte[] payload) {
+        int start = buffer.position();
+        buffer.position(start + Integer.BYTES);
+        buffer.putLong(sequence);
+        buffer.putInt(checksum(type, payload));
+        buffer.putShort((short) type.length);
+        buffer.put(type);
+        buffer.put(payload);
+        buffer.putInt(start, buffer.position() - start - Integer.BYTES);
+        lastSequence = sequence;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getFirstSequence() {
+        return firstSequence;
+    }
+
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private static int checksum(byte[] type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,40 @@
+package spring.dic.events.ring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+public class BlockingWaitStrategy implements WaitStrategy {
+    private final Lock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+
+    @Override
+    public long waitFor(long sequence, Sequence cursor, BooleanSupplier running) throws InterruptedException {
+        long available = cursor.get();
+        if (available >= sequence)
+            return available;
+
+        lock.lock();
+        try {
+            while ((available = cursor.get()) < sequence && running.getAsBoolean()) {
+                published.await(1, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return available;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        lock.lock();
+        try {
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
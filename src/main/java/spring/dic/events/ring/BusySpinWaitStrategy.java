@@ -0,0 +1,22 @@
+package spring.dic.events.ring;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Lowest latency, but keeps a core busy for as long as the bus runs.
+ */
+public class BusySpinWaitStrategy implements WaitStrategy {
+    @Override
+    public long waitFor(long sequence, Sequence cursor, BooleanSupplier running) {
+        long available;
+        while ((available = cursor.get()) < sequence && running.getAsBoolean()) {
+            Thread.onSpinWait();
+        }
+
+        return available;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+    }
+}
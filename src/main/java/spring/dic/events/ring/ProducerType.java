@@ -0,0 +1,9 @@
+package spring.dic.events.ring;
+
+public enum ProducerType {
+    /**
+     * Events are published from one thread only; claiming a slot needs no atomic operation.
+     */
+    SINGLE,
+    MULTI
+}
@@ -0,0 +1,141 @@
+package spring.dic.events.ring;
+
+import spring.dic.events.ApplicationEventPublisher;
+import spring.dic.events.EventBus;
+import spring.dic.events.journal.Acknowledgement;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link EventBus} on a preallocated ring of event slots, in the style of the LMAX Disruptor.
+ * Producers claim a slot, store the event and publish the sequence; a single consumer thread
+ * processes every published batch and advances its own sequence once per batch. After the last
+ * event of a batch it calls {@link ApplicationEventPublisher#endOfBatch()}, so
+ * {@link spring.dic.events.EndOfBatchListener}s can flush buffered work once per batch. When the ring
+ * is full, producers wait for the consumer instead of allocating more space.
+ * <p>
+ * Every listener, synchronous ones included, runs on the consumer thread, so {@code publish} returns
+ * before any listener has seen the event; exceptions of synchronous listeners are logged rather
+ * than thrown to the publisher. {@link spring.dic.events.Durable} events are journaled on the
+ * publishing thread before they take a slot. Events published by listeners on the consumer thread
+ * are dispatched right away, as waiting for a free slot there would wait for the thread itself.
+ */
+public class RingBufferEventBus implements EventBus {
+    private static final Logger LOGGER = Logger.getLogger(RingBufferEventBus.class.getName());
+    private static final VarHandle ENTRIES = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private final ApplicationEventPublisher publisher;
+    private final Object[] entries;
+    private final Acknowledgement[] acknowledgements;
+    private final int indexMask;
+    private final Sequence consumerSequence = new Sequence(-1);
+    private final Sequencer sequencer;
+    private final WaitStrategy waitStrategy;
+    private final Thread consumer;
+    private volatile boolean running = true;
+
+    public RingBufferEventBus(ApplicationEventPublisher publisher, int bufferSize, ProducerType producerType, WaitStrategy waitStrategy) {
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1)
+            throw new IllegalArgumentException("Buffer size must be a power of 2!");
+
+        this.publisher = publisher;
+        this.waitStrategy = waitStrategy;
+        entries = new Object[bufferSize];
+        acknowledgements = new Acknowledgement[bufferSize];
+        indexMask = bufferSize - 1;
+        sequencer = Sequencer.create(producerType, bufferSize, consumerSequence, waitStrategy);
+        consumer = new Thread(this::consume, "event-bus");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @Override
+    public void publish(Object event) {
+        if (!running)
+            throw new IllegalStateException("Event bus is closed!");
+
+        if (Thread.currentThread() == consumer) {
+            dispatch(event, publisher.journal(event));
+            return;
+        }
+
+        Acknowledgement acknowledgement = publisher.journal(event);
+        long sequence = sequencer.next();
+        int index = (int) sequence & indexMask;
+        acknowledgements[index] = acknowledgement;
+        ENTRIES.setRelease(entries, index, event);
+        sequencer.publish(sequence);
+    }
+
+    public long remainingCapacity() {
+        return sequencer.remainingCapacity();
+    }
+
+    /**
+     * Stops accepting events, waits for the consumer to drain the ones already published and stops it.
+     */
+    @Override
+    public void close() {
+        running = false;
+        waitStrategy.signalAllWhenBlocking();
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void consume() {
+        Sequence cursor = sequencer.getCursor();
+        long next = consumerSequence.get() + 1;
+        while (true) {
+            long available;
+            try {
+                available = waitStrategy.waitFor(next, cursor, () -> running);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            available = sequencer.getHighestPublishedSequence(next, available);
+            if (available < next) {
+                if (!running && cursor.get() < next)
+                    return;
+
+                Thread.onSpinWait();
+                continue;
+            }
+
+            for (; next <= available; next++) {
+                int index = (int) next & indexMask;
+                Object event = ENTRIES.getAcquire(entries, index);
+                Acknowledgement acknowledgement = acknowledgements[index];
+                entries[index] = null;
+                acknowledgements[index] = null;
+                dispatch(event, acknowledgement);
+            }
+
+            endOfBatch();
+            consumerSequence.set(available);
+        }
+    }
+
+    private void dispatch(Object event, Acknowledgement acknowledgement) {
+        try {
+            publisher.dispatchEvent(event, acknowledgement);
+        } catch (Throwable t) {
+            LOGGER.log(Level.SEVERE, "Listener failed for event " + event, t);
+        }
+    }
+
+    private void endOfBatch() {
+        try {
+            publisher.endOfBatch();
+        } catch (Throwable t) {
+            LOGGER.log(Level.SEVERE, "End of batch listener failed", t);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package spring.dic.events.ring;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Claims and publishes slots of the ring. A producer that would overwrite a slot the consumer has
+ * not processed yet parks until the consumer catches up.
+ */
+abstract class Sequencer {
+    protected final int bufferSize;
+    protected final Sequence cursor = new Sequence(-1);
+    protected final Sequence gatingSequence;
+    protected final WaitStrategy waitStrategy;
+
+    Sequencer(int bufferSize, Sequence gatingSequence, WaitStrategy waitStrategy) {
+        this.bufferSize = bufferSize;
+        this.gatingSequence = gatingSequence;
+        this.waitStrategy = waitStrategy;
+    }
+
+    static Sequencer create(ProducerType producerType, int bufferSize, Sequence gatingSequence, WaitStrategy waitStrategy) {
+        return producerType == ProducerType.SINGLE ?
+                new SingleProducerSequencer(bufferSize, gatingSequence, waitStrategy) :
+                new MultiProducerSequencer(bufferSize, gatingSequence, waitStrategy);
+    }
+
+    Sequence getCursor() {
+        return cursor;
+    }
+
+    abstract long next();
+
+    abstract void publish(long sequence);
+
+    /**
+     * Highest sequence in {@code [lowerBound, availableSequence]} whose slot and all slots before it
+     * are published.
+     */
+    abstract long getHighestPublishedSequence(long lowerBound, long availableSequence);
+
+    long remainingCapacity() {
+        return bufferSize - (cursor.get() - gatingSequence.get());
+    }
+
+    private static final class SingleProducerSequencer extends Sequencer {
+        private long nextValue = -1;
+        private long cachedGatingSequence = -1;
+
+        SingleProducerSequencer(int bufferSize, Sequence gatingSequence, WaitStrategy waitStrategy) {
+            super(bufferSize, gatingSequence, waitStrategy);
+        }
+
+        @Override
+        long next() {
+            long next = nextValue + 1;
+            long wrapPoint = next - bufferSize;
+            if (wrapPoint > cachedGatingSequence) {
+                long gating;
+                while (wrapPoint > (gating = gatingSequence.get())) {
+                    LockSupport.parkNanos(1);
+                }
+
+                cachedGatingSequence = gating;
+            }
+
+            nextValue = next;
+            return next;
+        }
+
+        @Override
+        void publish(long sequence) {
+            cursor.set(sequence);
+            waitStrategy.signalAllWhenBlocking();
+        }
+
+        @Override
+        long getHighestPublishedSequence(long lowerBound, long availableSequence) {
+            return availableSequence;
+        }
+    }
+
+    private static final class MultiProducerSequencer extends Sequencer {
+        private static final VarHandle AVAILABLE = MethodHandles.arrayElementVarHandle(int[].class);
+
+        private final Sequence cachedGatingSequence = new Sequence(-1);
+        private final int[] availableBuffer;
+        private final int indexMask;
+        private final int indexShift;
+
+        MultiProducerSequencer(int bufferSize, Sequence gatingSequence, WaitStrategy waitStrategy) {
+            super(bufferSize, gatingSequence, waitStrategy);
+            availableBuffer = new int[bufferSize];
+            indexMask = bufferSize - 1;
+            indexShift = Integer.numberOfTrailingZeros(bufferSize);
+            for (int i = 0; i < bufferSize; i++) {
+                AVAILABLE.setRelease(availableBuffer, i, -1);
+            }
+        }
+
+        @Override
+        long next() {
+            while (true) {
+                long current = cursor.get();
+                long next = current + 1;
+                long wrapPoint = next - bufferSize;
+                long cachedGating = cachedGatingSequence.get();
+                if (wrapPoint > cachedGating) {
+                    long gating = gatingSequence.get();
+                    if (wrapPoint > gating) {
+                        LockSupport.parkNanos(1);
+                        continue;
+                    }
+
+                    cachedGatingSequence.set(gating);
+                } else if (cursor.compareAndSet(current, next)) {
+                    return next;
+                }
+            }
+        }
+
+        @Override
+        void publish(long sequence) {
+            AVAILABLE.setRelease(availableBuffer, (int) sequence & indexMask, (int) (sequence >>> indexShift));
+            waitStrategy.signalAllWhenBlocking();
+        }
+
+        @Override
+        long getHighestPublishedSequence(long lowerBound, long availableSequence) {
+            for (long sequence = lowerBound; sequence <= availableSequence; sequence++) {
+                if (!isAvailable(sequence))
+                    return sequence - 1;
+            }
+
+            return availableSequence;
+        }
+
+        private boolean isAvailable(long sequence) {
+            int flag = (int) AVAILABLE.getAcquire(availableBuffer, (int) sequence & indexMask);
+            return flag == (int) (sequence >>> indexShift);
+        }
+    }
+}
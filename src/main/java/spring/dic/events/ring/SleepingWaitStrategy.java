@@ -0,0 +1,37 @@
+package spring.dic.events.ring;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Spins, then yields, then parks for short periods. Low CPU use while idle at the cost of some
+ * latency for the first event after a quiet period.
+ */
+public class SleepingWaitStrategy implements WaitStrategy {
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long SLEEP_NANOS = 100_000;
+
+    @Override
+    public long waitFor(long sequence, Sequence cursor, BooleanSupplier running) {
+        long available;
+        int counter = SPIN_TRIES + YIELD_TRIES;
+        while ((available = cursor.get()) < sequence && running.getAsBoolean()) {
+            if (counter > YIELD_TRIES) {
+                counter--;
+                Thread.onSpinWait();
+            } else if (counter > 0) {
+                counter--;
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(SLEEP_NANOS);
+            }
+        }
+
+        return available;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+    }
+}
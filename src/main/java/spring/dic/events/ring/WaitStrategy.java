@@ -0,0 +1,23 @@
+package spring.dic.events.ring;
+
+import java.util.function.BooleanSupplier;
+
+public interface WaitStrategy {
+    /**
+     * Waits until {@code cursor} reaches {@code sequence} and returns the cursor value, or returns
+     * early with a smaller value once {@code running} turns false.
+     */
+    long waitFor(long sequence, Sequence cursor, BooleanSupplier running) throws InterruptedException;
+
+    void signalAllWhenBlocking();
+
+    static WaitStrategy of(String name) {
+        return switch (name) {
+            case "blocking" -> new BlockingWaitStrategy();
+            case "sleeping" -> new SleepingWaitStrategy();
+            case "yielding" -> new YieldingWaitStrategy();
+            case "busy-spin" -> new BusySpinWaitStrategy();
+            default -> throw new IllegalArgumentException("Unknown wait strategy: " + name);
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package spring.dic.events.ring;
+
+import java.util.function.BooleanSupplier;
+
+public class YieldingWaitStrategy implements WaitStrategy {
+    private static final int SPIN_TRIES = 100;
+
+    @Override
+    public long waitFor(long sequence, Sequence cursor, BooleanSupplier running) {
+        long available;
+        int counter = SPIN_TRIES;
+        while ((available = cursor.get()) < sequence && running.getAsBoolean()) {
+            if (counter > 0) {
+                counter--;
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+
+        return available;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+    }
+}
@@ -0,0 +1,71 @@
+package spring.dic.scope;
+
+import spring.dic.ApplicationContextException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded set of reusable instances. A permit is held for every instance handed out, so no more
+ * than {@code maxSize} instances ever exist for the pooled class.
+ */
+public class BeanPool {
+    private final Class<?> beanClass;
+    private final int maxSize;
+    private final long timeoutMillis;
+    private final BlockingQueue<Object> idle;
+    private final Semaphore permits;
+    private final LongAdder created = new LongAdder();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public BeanPool(Class<?> beanClass, int maxSize, long timeoutMillis) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("Pool size must be positive!");
+
+        this.beanClass = beanClass;
+        this.maxSize = maxSize;
+        this.timeoutMillis = timeoutMillis;
+        idle = new ArrayBlockingQueue<>(maxSize);
+        permits = new Semaphore(maxSize, true);
+    }
+
+    public Object acquire(ObjectFactory factory) throws Exception {
+        if (!permits.tryAcquire()) {
+            waits.increment();
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new ApplicationContextException("Timed out waiting for pooled instance of " + beanClass);
+            }
+        }
+
+        try {
+            Object instance = idle.poll();
+            if (instance == null) {
+                instance = factory.getObject();
+                created.increment();
+            }
+
+            acquired.increment();
+            return instance;
+        } catch (Exception | Error e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public void release(Object instance) {
+        idle.offer(instance);
+        permits.release();
+    }
+
+    public PoolStatistics getStatistics() {
+        int idleCount = idle.size();
+        int active = maxSize - permits.availablePermits();
+        return new PoolStatistics(maxSize, active, idleCount, created.sum(), acquired.sum(), waits.sum(), timeouts.sum());
+    }
+}
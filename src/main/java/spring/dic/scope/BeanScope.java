@@ -0,0 +1,9 @@
+package spring.dic.scope;
+
+public interface BeanScope {
+    /**
+     * Returns the instance of {@code beanClass} visible in this scope, creating it through
+     * {@code factory} when the scope does not hold one yet.
+     */
+    Object get(Class<?> beanClass, ObjectFactory factory) throws Exception;
+}
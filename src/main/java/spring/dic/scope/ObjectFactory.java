@@ -0,0 +1,6 @@
+package spring.dic.scope;
+
+@FunctionalInterface
+public interface ObjectFactory {
+    Object getObject() throws Exception;
+}
@@ -0,0 +1,4 @@
+package spring.dic.scope;
+
+public record PoolStatistics(int maxSize, int active, int idle, long created, long acquired, long waits, long timeouts) {
+}
@@ -0,0 +1,42 @@
+package spring.dic.scope;
+
+import spring.annotation.Scope;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out instances from a {@link BeanPool} per class. An instance stays bound to the current
+ * request until the request completes and is then returned to its pool.
+ */
+public class PooledScope implements BeanScope {
+    private final Map<Class<?>, BeanPool> pools = new ConcurrentHashMap<>();
+
+    @Override
+    public Object get(Class<?> beanClass, ObjectFactory factory) throws Exception {
+        RequestAttributes attributes = RequestContextHolder.currentRequestAttributes();
+        Object instance = attributes.getBean(beanClass);
+        if (instance != null)
+            return instance;
+
+        BeanPool pool = pools.computeIfAbsent(beanClass, PooledScope::createPool);
+        Object pooled = pool.acquire(factory);
+        attributes.putBean(beanClass, pooled);
+        attributes.registerDestructionCallback(() -> pool.release(pooled));
+        return pooled;
+    }
+
+    public Map<Class<?>, PoolStatistics> getStatistics() {
+        Map<Class<?>, PoolStatistics> statistics = new HashMap<>();
+        pools.forEach((c, pool) -> statistics.put(c, pool.getStatistics()));
+        return statistics;
+    }
+
+    private static BeanPool createPool(Class<?> beanClass) {
+        Scope scope = beanClass.getDeclaredAnnotation(Scope.class);
+        int poolSize = scope != null ? scope.poolSize() : 8;
+        long timeoutMillis = scope != null ? scope.poolTimeoutMillis() : 1000;
+        return new BeanPool(beanClass, poolSize, timeoutMillis);
+    }
+}
@@ -0,0 +1,42 @@
+package spring.dic.scope;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RequestAttributes {
+    private final Map<Class<?>, Object> beans = new HashMap<>();
+    private final List<Runnable> destructionCallbacks = new ArrayList<>();
+
+    public Object getBean(Class<?> beanClass) {
+        return beans.get(beanClass);
+    }
+
+    public void putBean(Class<?> beanClass, Object instance) {
+        beans.put(beanClass, instance);
+    }
+
+    public void registerDestructionCallback(Runnable callback) {
+        destructionCallbacks.add(callback);
+    }
+
+    void complete() {
+        RuntimeException failure = null;
+        for (int i = destructionCallbacks.size() - 1; i >= 0; i--) {
+            try {
+                destructionCallbacks.get(i).run();
+            } catch (RuntimeException e) {
+                if (failure == null)
+                    failure = e;
+                else
+                    failure.addSuppressed(e);
+            }
+        }
+
+        destructionCallbacks.clear();
+        beans.clear();
+        if (failure != null)
+            throw failure;
+    }
+}
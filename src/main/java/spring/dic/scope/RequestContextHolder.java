@@ -0,0 +1,37 @@
+package spring.dic.scope;
+
+import spring.dic.ApplicationContextException;
+
+public final class RequestContextHolder {
+    private static final ThreadLocal<RequestAttributes> CURRENT = new ThreadLocal<>();
+
+    private RequestContextHolder() {
+    }
+
+    public static RequestAttributes bind() {
+        RequestAttributes attributes = new RequestAttributes();
+        CURRENT.set(attributes);
+        return attributes;
+    }
+
+    /**
+     * Unbinds the request from the current thread and runs its destruction callbacks,
+     * returning pooled instances to their pools.
+     */
+    public static void reset(RequestAttributes attributes) {
+        CURRENT.remove();
+        attributes.complete();
+    }
+
+    public static RequestAttributes getRequestAttributes() {
+        return CURRENT.get();
+    }
+
+    public static RequestAttributes currentRequestAttributes() throws ApplicationContextException {
+        RequestAttributes attributes = CURRENT.get();
+        if (attributes == null)
+            throw new ApplicationContextException("No request bound to the current thread!");
+
+        return attributes;
+    }
+}
@@ -0,0 +1,15 @@
+package spring.dic.scope;
+
+public class RequestScope implements BeanScope {
+    @Override
+    public Object get(Class<?> beanClass, ObjectFactory factory) throws Exception {
+        RequestAttributes attributes = RequestContextHolder.currentRequestAttributes();
+        Object instance = attributes.getBean(beanClass);
+        if (instance == null) {
+            instance = factory.getObject();
+            attributes.putBean(beanClass, instance);
+        }
+
+        return instance;
+    }
+}
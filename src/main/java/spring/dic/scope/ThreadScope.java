@@ -0,0 +1,20 @@
+package spring.dic.scope;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ThreadScope implements BeanScope {
+    private final ThreadLocal<Map<Class<?>, Object>> instances = ThreadLocal.withInitial(HashMap::new);
+
+    @Override
+    public Object get(Class<?> beanClass, ObjectFactory factory) throws Exception {
+        Map<Class<?>, Object> threadInstances = instances.get();
+        Object instance = threadInstances.get(beanClass);
+        if (instance == null) {
+            instance = factory.getObject();
+            threadInstances.put(beanClass, instance);
+        }
+
+        return instance;
+    }
+}
@@ -0,0 +1,7 @@
+package spring.exception;
+
+public class HandlerNotFoundException extends ResponseException {
+    public HandlerNotFoundException(String requestMethod, String path) {
+        super(404, "No handler found for " + requestMethod + " " + path);
+    }
+}
@@ -1,10 +1,14 @@
 package spring.exception;
 
+/**
+ * Ends a request with the given status. Thrown for control flow, so no stack trace is captured.
+ */
 public class ResponseException extends RuntimeException {
     public int statusCode;
     public String message;
 
     public ResponseException(int statusCode, String message) {
+        super(message, null, false, false);
         this.statusCode = statusCode;
         this.message = message;
     }
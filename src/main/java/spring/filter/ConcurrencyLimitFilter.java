@@ -0,0 +1,97 @@
+package spring.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import spring.annotation.RequestPriority;
+import spring.config.MethodHandler;
+import spring.dic.ApplicationContext;
+import spring.server.DispatcherServlet;
+import spring.server.ResponseWriter;
+
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rejects requests with 503 as soon as the adaptive {@link ConcurrencyLimiter} is exhausted, so
+ * an overloaded backend sheds load instead of queueing it in the container. Routes annotated
+ * {@link RequestPriority.Level#CRITICAL} always pass, {@link RequestPriority.Level#LOW} ones only
+ * get {@code spring.concurrency.low-priority-share} of the limit. Requests not dispatched to a
+ * controller, such as metrics scrapes, pass as well. The dispatcher reuses the route looked up here.
+ * <p>
+ * Only requests that ran their controller method feed the limiter, each against the latency of its
+ * own route: rejections by interceptors and response cache hits finish in microseconds and would
+ * make every real request look like overload. The filter is off unless
+ * {@code spring.concurrency.enabled} is set.
+ */
+public class ConcurrencyLimitFilter extends HttpFilter {
+    private final DispatcherServlet dispatcherServlet;
+    private final ResponseWriter responseWriter = new ResponseWriter();
+    private final ConcurrencyLimiter limiter;
+    private final double lowPriorityShare;
+    private final Map<MethodHandler, RequestPriority.Level> priorities = new IdentityHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+    private final boolean enabled;
+
+    public ConcurrencyLimitFilter(ApplicationContext applicationContext, int maxThreads) {
+        dispatcherServlet = applicationContext.getInstance(DispatcherServlet.class);
+        enabled = Boolean.parseBoolean(applicationContext.getProperty("spring.concurrency.enabled", "false"));
+        limiter = new ConcurrencyLimiter(
+                Integer.parseInt(applicationContext.getProperty("spring.concurrency.initial-limit", "20")),
+                Integer.parseInt(applicationContext.getProperty("spring.concurrency.min-limit", "4")),
+                Integer.parseInt(applicationContext.getProperty("spring.concurrency.max-limit", String.valueOf(maxThreads))),
+                Double.parseDouble(applicationContext.getProperty("spring.concurrency.backoff-ratio", "0.9")),
+                Double.parseDouble(applicationContext.getProperty("spring.concurrency.latency-tolerance", "2.0")),
+                Long.parseLong(applicationContext.getProperty("spring.concurrency.baseline-window-ms", "30000")));
+        lowPriorityShare = Double.parseDouble(applicationContext.getProperty("spring.concurrency.low-priority-share", "0.5"));
+        for (MethodHandler handler : dispatcherServlet.getRouteHandlers().values()) {
+            RequestPriority priority = handler.getAnnotation(RequestPriority.class);
+            if (priority != null)
+                priorities.put(handler, priority.value());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public ConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    protected void doFilter(HttpServletRequest req, HttpServletResponse res, FilterChain chain) throws IOException, ServletException {
+        MethodHandler handler = dispatcherServlet.getHandler(req);
+        RequestPriority.Level priority = handler != null ? priorities.getOrDefault(handler, RequestPriority.Level.NORMAL) : RequestPriority.Level.CRITICAL;
+        if (priority == RequestPriority.Level.CRITICAL) {
+            chain.doFilter(req, res);
+            return;
+        }
+
+        if (!limiter.tryAcquire(priority == RequestPriority.Level.LOW ? lowPriorityShare : 1.0)) {
+            rejected.increment();
+            res.setHeader("Retry-After", "1");
+            responseWriter.writeError(res, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server overloaded");
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(req, res);
+            failed = res.getStatus() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        } finally {
+            // streamed responses, cache hits and interceptor rejections return right away and would
+            // drag the latency baseline down
+            boolean invoked = Boolean.TRUE.equals(req.getAttribute(DispatcherServlet.INVOKED_ATTRIBUTE));
+            limiter.release(handler, req.isAsyncStarted() || !invoked ? -1 : System.nanoTime() - start, failed);
+        }
+    }
+}
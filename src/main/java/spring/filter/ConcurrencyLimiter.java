@@ -0,0 +1,131 @@
+package spring.filter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit adjusted by additive increase, multiplicative decrease on observed latency.
+ * Each completed request whose latency stays within {@code tolerance} times the baseline raises
+ * the limit by one per limit's worth of requests while the limit is in use; a slower or failed
+ * request lowers it by {@code backoffRatio}, at most once per its latency so one slow burst counts
+ * once. Each route has its own baseline, the lowest latency of that route in the last window,
+ * rising by at most a tenth per window: it follows a lasting change of the backend's speed without
+ * ratcheting up on the queueing the limit is meant to prevent. A route is only judged against
+ * itself, so cheap routes don't make the expensive ones look overloaded.
+ * <p>
+ * Admission is a CAS on the in-flight count. Samples are applied under a lock that is only tried,
+ * so under contention some samples are skipped rather than waited for.
+ */
+public class ConcurrencyLimiter {
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double tolerance;
+    private final long windowNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock sampleLock = new ReentrantLock();
+    private volatile int limit;
+    private final Map<Object, Baseline> baselines = new HashMap<>();
+    private double estimatedLimit;
+    private long lastDecrease = System.nanoTime() - TimeUnit.HOURS.toNanos(1);
+
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, double tolerance, long windowMillis) {
+        if (minLimit <= 0 || minLimit > maxLimit)
+            throw new IllegalArgumentException("Invalid limit range: " + minLimit + ".." + maxLimit);
+
+        if (backoffRatio <= 0 || backoffRatio >= 1)
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1: " + backoffRatio);
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.tolerance = tolerance;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        estimatedLimit = Math.min(maxLimit, Math.max(minLimit, initialLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Admits a request while fewer than {@code share} of the limit are in flight.
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed)
+                return false;
+
+            if (inFlight.compareAndSet(current, current + 1))
+                return true;
+        }
+    }
+
+    /**
+     * Ends an admitted request that took {@code latencyNanos} on {@code route}. {@code failed}
+     * requests count as overload regardless of latency; a negative {@code latencyNanos} releases
+     * the request without taking a sample.
+     */
+    public void release(Object route, long latencyNanos, boolean failed) {
+        int current = inFlight.getAndDecrement();
+        if (latencyNanos < 0 || !sampleLock.tryLock())
+            return;
+
+        try {
+            sample(route, latencyNanos, failed, current, System.nanoTime());
+        } finally {
+            sampleLock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void sample(Object route, long latencyNanos, boolean failed, int inFlight, long now) {
+        long baselineNanos = baselines.computeIfAbsent(route, r -> new Baseline(now)).update(latencyNanos, now, windowNanos);
+        if (failed || latencyNanos > baselineNanos * tolerance) {
+            if (now - lastDecrease < latencyNanos)
+                return;
+
+            lastDecrease = now;
+            estimatedLimit = Math.max(minLimit, estimatedLimit * backoffRatio);
+        } else if (inFlight * 2 >= estimatedLimit) {
+            estimatedLimit = Math.min(maxLimit, estimatedLimit + 1 / estimatedLimit);
+        }
+
+        limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Latency baseline of one route; guarded by the sample lock.
+     */
+    private static final class Baseline {
+        private long baselineNanos = Long.MAX_VALUE;
+        private long windowMinNanos = Long.MAX_VALUE;
+        private long windowStart;
+
+        Baseline(long now) {
+            windowStart = now;
+        }
+
+        long update(long latencyNanos, long now, long windowNanos) {
+            windowMinNanos = Math.min(windowMinNanos, latencyNanos);
+            if (baselineNanos == Long.MAX_VALUE) {
+                baselineNanos = windowMinNanos;
+            } else if (now - windowStart >= windowNanos) {
+                baselineNanos = Math.min(windowMinNanos, baselineNanos + baselineNanos / 10);
+                windowMinNanos = Long.MAX_VALUE;
+                windowStart = now;
+            }
+
+            return baselineNanos;
+        }
+    }
+}
@@ -6,15 +6,18 @@ import jakarta.servlet.http.HttpFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import spring.exception.ResponseException;
+import spring.server.ResponseWriter;
 
 import java.io.IOException;
 
 public class ExceptionFilter extends HttpFilter {
+    private final ResponseWriter responseWriter = new ResponseWriter();
+
     protected void doFilter(HttpServletRequest req, HttpServletResponse res, FilterChain chain) throws IOException, ServletException {
         try {
             chain.doFilter(req, res);
         } catch (ResponseException e) {
-            res.sendError(e.statusCode, e.message);
+            responseWriter.writeError(res, e.statusCode, e.message);
         }
     }
 }
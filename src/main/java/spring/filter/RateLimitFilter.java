@@ -0,0 +1,114 @@
+package spring.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import spring.annotation.RateLimit;
+import spring.config.MethodHandler;
+import spring.dic.ApplicationContext;
+import spring.server.DispatcherServlet;
+import spring.server.ResponseWriter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rejects requests over the per-client limit ({@code spring.ratelimit.client.*}) or over the limit
+ * of their route ({@link RateLimit} or {@code spring.ratelimit.route.*}) with 429 and a
+ * {@code Retry-After} header, before the dispatcher runs. Clients are identified by their
+ * authenticated principal, otherwise by remote address. The route is looked up through
+ * {@link DispatcherServlet#getHandler}, which leaves it in the request for the dispatcher and the
+ * other filters, so rate limiting doesn't match the route patterns a second time.
+ */
+public class RateLimitFilter extends HttpFilter {
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final DispatcherServlet dispatcherServlet;
+    private final ResponseWriter responseWriter = new ResponseWriter();
+    private final RateLimiter clientLimiter;
+    private final Map<String, AtomicLong> clientBuckets = new ConcurrentHashMap<>();
+    private final Map<MethodHandler, RouteBucket> routeBuckets = new IdentityHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    public RateLimitFilter(ApplicationContext applicationContext) {
+        dispatcherServlet = applicationContext.getInstance(DispatcherServlet.class);
+        clientLimiter = createLimiter(applicationContext, "spring.ratelimit.client");
+        RateLimiter defaultRouteLimiter = createLimiter(applicationContext, "spring.ratelimit.route");
+        long now = System.nanoTime();
+        for (MethodHandler handler : dispatcherServlet.getRouteHandlers().values()) {
+            RateLimit rateLimit = handler.getAnnotation(RateLimit.class);
+            RateLimiter limiter = rateLimit != null ? new RateLimiter(rateLimit.value(), rateLimit.burst()) : defaultRouteLimiter;
+            if (limiter != null)
+                routeBuckets.put(handler, new RouteBucket(limiter, limiter.newBucket(now)));
+        }
+    }
+
+    public boolean isEnabled() {
+        return clientLimiter != null || !routeBuckets.isEmpty();
+    }
+
+    protected void doFilter(HttpServletRequest req, HttpServletResponse res, FilterChain chain) throws IOException, ServletException {
+        long now = System.nanoTime();
+        long wait = acquireClient(req, now);
+        if (wait == 0)
+            wait = acquireRoute(req, now);
+
+        if (wait > 0) {
+            res.setHeader("Retry-After", String.valueOf(TimeUnit.NANOSECONDS.toSeconds(wait - 1) + 1));
+            responseWriter.writeError(res, 429, "Rate limit exceeded");
+            return;
+        }
+
+        chain.doFilter(req, res);
+    }
+
+    private long acquireClient(HttpServletRequest req, long now) {
+        if (clientLimiter == null)
+            return 0;
+
+        sweepIdleClients(now);
+        AtomicLong bucket = clientBuckets.computeIfAbsent(clientKey(req), key -> clientLimiter.newBucket(now));
+        return clientLimiter.tryAcquire(bucket, now);
+    }
+
+    private long acquireRoute(HttpServletRequest req, long now) {
+        if (routeBuckets.isEmpty())
+            return 0;
+
+        MethodHandler handler = dispatcherServlet.getHandler(req);
+        RouteBucket routeBucket = handler != null ? routeBuckets.get(handler) : null;
+        return routeBucket != null ? routeBucket.limiter.tryAcquire(routeBucket.bucket, now) : 0;
+    }
+
+    private void sweepIdleClients(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now))
+            return;
+
+        clientBuckets.values().removeIf(bucket -> clientLimiter.isIdle(bucket, now));
+    }
+
+    private static String clientKey(HttpServletRequest req) {
+        Principal principal = req.getUserPrincipal();
+        return principal != null ? "user:" + principal.getName() : req.getRemoteAddr();
+    }
+
+    private static RateLimiter createLimiter(ApplicationContext applicationContext, String prefix) {
+        double rate = Double.parseDouble(applicationContext.getProperty(prefix + ".requests-per-second", "0"));
+        if (rate <= 0)
+            return null;
+
+        int burst = Integer.parseInt(applicationContext.getProperty(prefix + ".burst", "0"));
+        return new RateLimiter(rate, burst);
+    }
+
+    private record RouteBucket(RateLimiter limiter, AtomicLong bucket) {
+    }
+}
@@ -0,0 +1,51 @@
+package spring.filter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket in its GCRA form: a bucket is a single {@link AtomicLong} holding the theoretical
+ * arrival time of the next request, updated with a CAS loop.
+ */
+public class RateLimiter {
+    private final long emissionIntervalNanos;
+    private final long toleranceNanos;
+
+    public RateLimiter(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0)
+            throw new IllegalArgumentException("Rate must be positive: " + permitsPerSecond);
+
+        emissionIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        int bucketSize = burst > 0 ? burst : (int) Math.max(1, Math.ceil(permitsPerSecond));
+        toleranceNanos = emissionIntervalNanos * bucketSize;
+    }
+
+    public AtomicLong newBucket(long now) {
+        return new AtomicLong(now);
+    }
+
+    /**
+     * Takes a permit from {@code bucket}; returns {@code 0} when granted, otherwise the nanoseconds
+     * until one becomes available.
+     */
+    public long tryAcquire(AtomicLong bucket, long now) {
+        while (true) {
+            long theoreticalArrival = bucket.get();
+            long start = theoreticalArrival - now > 0 ? theoreticalArrival : now;
+            long next = start + emissionIntervalNanos;
+            long wait = next - now - toleranceNanos;
+            if (wait > 0)
+                return wait;
+
+            if (bucket.compareAndSet(theoreticalArrival, next))
+                return 0;
+        }
+    }
+
+    /**
+     * A full bucket behaves like a new one and can be dropped.
+     */
+    public boolean isIdle(AtomicLong bucket, long now) {
+        return bucket.get() - now <= 0;
+    }
+}
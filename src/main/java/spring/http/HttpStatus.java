@@ -0,0 +1,51 @@
+package spring.http;
+
+public enum HttpStatus {
+    OK(200, "OK"),
+    CREATED(201, "Created"),
+    NO_CONTENT(204, "No Content"),
+    BAD_REQUEST(400, "Bad Request"),
+    UNAUTHORIZED(401, "Unauthorized"),
+    FORBIDDEN(403, "Forbidden"),
+    NOT_FOUND(404, "Not Found"),
+    METHOD_NOT_ALLOWED(405, "Method Not Allowed"),
+    CONFLICT(409, "Conflict"),
+    PAYLOAD_TOO_LARGE(413, "Payload Too Large"),
+    TOO_MANY_REQUESTS(429, "Too Many Requests"),
+    REQUEST_HEADER_FIELDS_TOO_LARGE(431, "Request Header Fields Too Large"),
+    INTERNAL_SERVER_ERROR(500, "Internal Server Error"),
+    NOT_IMPLEMENTED(501, "Not Implemented"),
+    SERVICE_UNAVAILABLE(503, "Service Unavailable"),
+    HTTP_VERSION_NOT_SUPPORTED(505, "HTTP Version Not Supported");
+
+    private static final HttpStatus[] BY_CODE = new HttpStatus[600];
+
+    static {
+        for (HttpStatus status : values()) {
+            BY_CODE[status.value] = status;
+        }
+    }
+
+    private final int value;
+    private final String reasonPhrase;
+
+    HttpStatus(int value, String reasonPhrase) {
+        this.value = value;
+        this.reasonPhrase = reasonPhrase;
+    }
+
+    public int value() {
+        return value;
+    }
+
+    public String getReasonPhrase() {
+        return reasonPhrase;
+    }
+
+    /**
+     * Status for the given code, {@code null} when it isn't defined here.
+     */
+    public static HttpStatus resolve(int statusCode) {
+        return statusCode >= 0 && statusCode < BY_CODE.length ? BY_CODE[statusCode] : null;
+    }
+}
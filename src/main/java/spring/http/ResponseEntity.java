@@ -0,0 +1,27 @@
+package spring.http;
+
+public class ResponseEntity<T> {
+    private final T body;
+    private final int status;
+
+    public ResponseEntity(HttpStatus status) {
+        this(null, status);
+    }
+
+    public ResponseEntity(T body, HttpStatus status) {
+        this(body, status.value());
+    }
+
+    public ResponseEntity(T body, int status) {
+        this.body = body;
+        this.status = status;
+    }
+
+    public T getBody() {
+        return body;
+    }
+
+    public int getStatusCodeValue() {
+        return status;
+    }
+}
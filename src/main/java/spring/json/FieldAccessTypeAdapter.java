@@ -0,0 +1,552 @@
+package spring.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adapter for one DTO class, built once from its fields. Fields are read and written through
+ * method handles adapted to their exact primitive or reference type, so {@code int}, {@code long},
+ * {@code double}, {@code boolean} and {@link String} fields are converted without boxing or a
+ * delegate adapter; other fields use the adapter Gson provides for their declared type.
+ * <p>
+ * When the {@link Gson} instance writes compact JSON, an object is encoded into a
+ * {@link StringBuilder} with pre-quoted field names and handed to the writer in one
+ * {@link JsonWriter#jsonValue(String)} call, skipping the writer's per-token bookkeeping and the
+ * synchronized appends of the {@link java.io.StringWriter} behind {@link Gson#toJson(Object)}.
+ * Each thread reuses one builder for this, so serializing a list allocates little more than the
+ * string handed to the writer per element.
+ */
+final class FieldAccessTypeAdapter<T> extends TypeAdapter<T> {
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final ThreadLocal<Encoder> ENCODERS = ThreadLocal.withInitial(Encoder::new);
+
+    private final MethodHandle constructor;
+    private final BoundField[] fields;
+    private final Map<String, BoundField> fieldsByName;
+    private final boolean compact;
+
+    private FieldAccessTypeAdapter(MethodHandle constructor, BoundField[] fields, boolean compact) {
+        this.constructor = constructor;
+        this.fields = fields;
+        this.compact = compact;
+        fieldsByName = new HashMap<>(fields.length * 2);
+        for (BoundField field : fields) {
+            fieldsByName.put(field.name, field);
+        }
+    }
+
+    /**
+     * @param compact whether {@code gson} writes without indentation
+     */
+    static <T> FieldAccessTypeAdapter<T> create(Gson gson, Class<? super T> type, boolean compact) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            List<BoundField> fields = new ArrayList<>();
+            Map<String, Field> names = new HashMap<>();
+            for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+                if (current != type)
+                    lookup = MethodHandles.privateLookupIn(current, MethodHandles.lookup());
+
+                for (Field field : current.getDeclaredFields()) {
+                    if (!isBound(field))
+                        continue;
+
+                    String name = nameOf(field);
+                    Field previous = names.putIfAbsent(name, field);
+                    if (previous != null)
+                        throw new IllegalArgumentException(type + " declares multiple JSON fields named '" + name + "'; conflict is caused by fields "
+                                + previous + " and " + field);
+
+                    fields.add(bind(gson, lookup, field, name));
+                }
+            }
+
+            return new FieldAccessTypeAdapter<>(constructor, fields.toArray(new BoundField[0]), compact);
+        } catch (IllegalAccessException | NoSuchMethodException e) {
+            throw new JsonIOException("Can't access " + type, e);
+        }
+    }
+
+    static boolean isBound(Field field) {
+        int modifiers = field.getModifiers();
+        return !Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic();
+    }
+
+    @Override
+    public void write(JsonWriter out, T value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+
+        try {
+            if (compact) {
+                Encoder encoder = ENCODERS.get();
+                // adapters without a fast path may call back into here while the builder is in use
+                if (encoder.inUse)
+                    encoder = new Encoder();
+
+                encoder.begin(out.isHtmlSafe(), out.getSerializeNulls());
+                boolean written = false;
+                try {
+                    encode(encoder, value);
+                    out.jsonValue(encoder.sb.toString());
+                    written = true;
+                } finally {
+                    encoder.end(written);
+                }
+
+                return;
+            }
+
+            out.beginObject();
+            for (BoundField field : fields) {
+                out.name(field.name);
+                field.write(out, value);
+            }
+
+            out.endObject();
+        } catch (IOException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new JsonIOException(t);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        try {
+            Object instance = constructor.invokeExact();
+            in.beginObject();
+            while (in.hasNext()) {
+                BoundField field = fieldsByName.get(in.nextName());
+                if (field == null)
+                    in.skipValue();
+                else if (in.peek() == JsonToken.NULL && field.primitive)
+                    in.nextNull();
+                else
+                    field.read(in, instance);
+            }
+
+            in.endObject();
+            return (T) instance;
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new JsonIOException(t);
+        }
+    }
+
+    private void encode(Encoder encoder, Object value) throws Throwable {
+        StringBuilder sb = encoder.sb;
+        sb.append('{');
+        boolean first = true;
+        for (BoundField field : fields) {
+            if (field.encode(encoder, value, first))
+                first = false;
+        }
+
+        sb.append('}');
+    }
+
+    private static String nameOf(Field field) {
+        SerializedName serializedName = field.getAnnotation(SerializedName.class);
+        return serializedName != null ? serializedName.value() : field.getName();
+    }
+
+    private static BoundField bind(Gson gson, MethodHandles.Lookup lookup, Field field, String name) throws IllegalAccessException {
+        Class<?> type = field.getType();
+        if (Modifier.isFinal(field.getModifiers()))
+            field.setAccessible(true);
+
+        MethodHandle getter = lookup.unreflectGetter(field);
+        MethodHandle setter = lookup.unreflectSetter(field);
+        if (type == int.class)
+            return new IntField(name, getter, setter);
+
+        if (type == long.class)
+            return new LongField(name, getter, setter);
+
+        if (type == double.class)
+            return new DoubleField(name, getter, setter, gson.getAdapter(double.class));
+
+        if (type == boolean.class)
+            return new BooleanField(name, getter, setter);
+
+        if (type == String.class)
+            return new StringField(name, getter, setter);
+
+        TypeAdapter<?> adapter = gson.getAdapter(TypeToken.get(field.getGenericType()));
+        return new ObjectField(name, type, getter, setter, adapter, gson);
+    }
+
+    /**
+     * Target of compact {@link #write}s, carrying the settings of the writer the current one ends
+     * up in. Kept per thread; a builder grown beyond {@value #MAX_RETAINED_CAPACITY} chars by a large
+     * object is dropped afterwards instead of being held on to.
+     */
+    private static final class Encoder {
+        private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+        StringBuilder sb = new StringBuilder(128);
+        boolean htmlSafe;
+        boolean serializeNulls;
+        boolean inUse;
+        private JsonWriter writer;
+
+        void begin(boolean htmlSafe, boolean serializeNulls) {
+            this.htmlSafe = htmlSafe;
+            this.serializeNulls = serializeNulls;
+            inUse = true;
+        }
+
+        /**
+         * @param written whether the write completed; a writer left halfway through a value is dropped
+         */
+        void end(boolean written) {
+            inUse = false;
+            if (!written)
+                writer = null;
+
+            if (sb.capacity() > MAX_RETAINED_CAPACITY)
+                sb = new StringBuilder(128);
+            else
+                sb.setLength(0);
+        }
+
+        void name(BoundField field, boolean first) {
+            if (!first)
+                sb.append(',');
+
+            sb.append(htmlSafe ? field.htmlSafeQuotedName : field.quotedName);
+        }
+
+        /**
+         * Writes {@code value} with a writer appending to the buffer, for types without a fast path.
+         */
+        void write(TypeAdapter<Object> adapter, Object value) throws IOException {
+            if (writer == null) {
+                writer = new JsonWriter(new Writer() {
+                    @Override
+                    public void write(char[] chars, int offset, int length) {
+                        sb.append(chars, offset, length);
+                    }
+
+                    @Override
+                    public void write(String string, int offset, int length) {
+                        sb.append(string, offset, offset + length);
+                    }
+
+                    @Override
+                    public void write(int c) {
+                        sb.append((char) c);
+                    }
+
+                    @Override
+                    public void flush() {
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                });
+                // lenient, so the writer takes one complete value after another
+                writer.setLenient(true);
+            }
+
+            writer.setHtmlSafe(htmlSafe);
+            writer.setSerializeNulls(serializeNulls);
+            adapter.write(writer, value);
+        }
+    }
+
+    private abstract static class BoundField {
+        final String name;
+        final String quotedName;
+        final String htmlSafeQuotedName;
+        final boolean primitive;
+
+        BoundField(String name, boolean primitive) {
+            this.name = name;
+            this.primitive = primitive;
+            quotedName = JsonStrings.quote(name, false) + ':';
+            htmlSafeQuotedName = JsonStrings.quote(name, true) + ':';
+        }
+
+        abstract void write(JsonWriter out, Object instance) throws Throwable;
+
+        /**
+         * Appends the field, preceded by a comma unless {@code first}; returns whether anything
+         * was appended.
+         */
+        abstract boolean encode(Encoder encoder, Object instance, boolean first) throws Throwable;
+
+        abstract void read(JsonReader in, Object instance) throws Throwable;
+    }
+
+    private static final class IntField extends BoundField {
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        IntField(String name, MethodHandle getter, MethodHandle setter) {
+            super(name, true);
+            this.getter = getter.asType(MethodType.methodType(int.class, Object.class));
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, int.class));
+        }
+
+        @Override
+        void write(JsonWriter out, Object instance) throws Throwable {
+            out.value((int) getter.invokeExact(instance));
+        }
+
+        @Override
+        boolean encode(Encoder encoder, Object instance, boolean first) throws Throwable {
+            encoder.name(this, first);
+            encoder.sb.append((int) getter.invokeExact(instance));
+            return true;
+        }
+
+        @Override
+        void read(JsonReader in, Object instance) throws Throwable {
+            setter.invokeExact(instance, in.nextInt());
+        }
+    }
+
+    private static final class LongField extends BoundField {
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        LongField(String name, MethodHandle getter, MethodHandle setter) {
+            super(name, true);
+            this.getter = getter.asType(MethodType.methodType(long.class, Object.class));
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, long.class));
+        }
+
+        @Override
+        void write(JsonWriter out, Object instance) throws Throwable {
+            out.value((long) getter.invokeExact(instance));
+        }
+
+        @Override
+        boolean encode(Encoder encoder, Object instance, boolean first) throws Throwable {
+            encoder.name(this, first);
+            encoder.sb.append((long) getter.invokeExact(instance));
+            return true;
+        }
+
+        @Override
+        void read(JsonReader in, Object instance) throws Throwable {
+            setter.invokeExact(instance, in.nextLong());
+        }
+    }
+
+    /**
+     * NaN and infinite values go through Gson's own adapter, which rejects them unless configured
+     * otherwise.
+     */
+    private static final class DoubleField extends BoundField {
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+        private final TypeAdapter<Double> adapter;
+
+        DoubleField(String name, MethodHandle getter, MethodHandle setter, TypeAdapter<Double> adapter) {
+            super(name, true);
+            this.getter = getter.asType(MethodType.methodType(double.class, Object.class));
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, double.class));
+            this.adapter = adapter;
+        }
+
+        @Override
+        void write(JsonWriter out, Object instance) throws Throwable {
+            adapter.write(out, (double) getter.invokeExact(instance));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        boolean encode(Encoder encoder, Object instance, boolean first) throws Throwable {
+            double value = (double) getter.invokeExact(instance);
+            encoder.name(this, first);
+            if (Double.isFinite(value))
+                encoder.sb.append(value);
+            else
+                encoder.write((TypeAdapter<Object>) (TypeAdapter<?>) adapter, value);
+
+            return true;
+        }
+
+        @Override
+        void read(JsonReader in, Object instance) throws Throwable {
+            setter.invokeExact(instance, in.nextDouble());
+        }
+    }
+
+    private static final class BooleanField extends BoundField {
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        BooleanField(String name, MethodHandle getter, MethodHandle setter) {
+            super(name, true);
+            this.getter = getter.asType(MethodType.methodType(boolean.class, Object.class));
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, boolean.class));
+        }
+
+        @Override
+        void write(JsonWriter out, Object instance) throws Throwable {
+            out.value((boolean) getter.invokeExact(instance));
+        }
+
+        @Override
+        boolean encode(Encoder encoder, Object instance, boolean first) throws Throwable {
+            encoder.name(this, first);
+            encoder.sb.append((boolean) getter.invokeExact(instance));
+            return true;
+        }
+
+        @Override
+        void read(JsonReader in, Object instance) throws Throwable {
+            boolean value = in.peek() == JsonToken.STRING ? Boolean.parseBoolean(in.nextString()) : in.nextBoolean();
+            setter.invokeExact(instance, value);
+        }
+    }
+
+    private static final class StringField extends BoundField {
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        StringField(String name, MethodHandle getter, MethodHandle setter) {
+            super(name, false);
+            this.getter = getter.asType(MethodType.methodType(String.class, Object.class));
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, String.class));
+        }
+
+        @Override
+        void write(JsonWriter out, Object instance) throws Throwable {
+            out.value((String) getter.invokeExact(instance));
+        }
+
+        @Override
+        boolean encode(Encoder encoder, Object instance, boolean first) throws Throwable {
+            String value = (String) getter.invokeExact(instance);
+            if (value == null && !encoder.serializeNulls)
+                return false;
+
+            encoder.name(this, first);
+            if (value == null)
+                encoder.sb.append("null");
+            else
+                JsonStrings.quote(encoder.sb, value, encoder.htmlSafe);
+
+            return true;
+        }
+
+        @Override
+        void read(JsonReader in, Object instance) throws Throwable {
+            JsonToken token = in.peek();
+            String value;
+            if (token == JsonToken.NULL) {
+                in.nextNull();
+                value = null;
+            } else if (token == JsonToken.BOOLEAN) {
+                value = Boolean.toString(in.nextBoolean());
+            } else {
+                value = in.nextString();
+            }
+
+            setter.invokeExact(instance, value);
+        }
+    }
+
+    /**
+     * Writes values whose class differs from the declared type with the adapter of their runtime
+     * class, as Gson's reflective adapter does.
+     */
+    private static final class ObjectField extends BoundField {
+        private final Class<?> type;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+        private final TypeAdapter<Object> adapter;
+        private final Gson gson;
+
+        @SuppressWarnings("unchecked")
+        ObjectField(String name, Class<?> type, MethodHandle getter, MethodHandle setter, TypeAdapter<?> adapter, Gson gson) {
+            super(name, type.isPrimitive());
+            this.type = type;
+            this.getter = getter.asType(GETTER);
+            this.setter = setter.asType(SETTER);
+            this.adapter = (TypeAdapter<Object>) adapter;
+            this.gson = gson;
+        }
+
+        @Override
+        void write(JsonWriter out, Object instance) throws Throwable {
+            Object value = (Object) getter.invokeExact(instance);
+            adapterFor(value).write(out, value);
+        }
+
+        @Override
+        boolean encode(Encoder encoder, Object instance, boolean first) throws Throwable {
+            Object value = (Object) getter.invokeExact(instance);
+            if (value == null && !encoder.serializeNulls)
+                return false;
+
+            encoder.name(this, first);
+            if (value == null) {
+                encoder.sb.append("null");
+                return true;
+            }
+
+            TypeAdapter<Object> valueAdapter = adapterFor(value);
+            if (valueAdapter instanceof FieldAccessTypeAdapter<Object> nested && nested.compact)
+                nested.encode(encoder, value);
+            else
+                encoder.write(valueAdapter, value);
+
+            return true;
+        }
+
+        @Override
+        void read(JsonReader in, Object instance) throws Throwable {
+            Object value = adapter.read(in);
+            if (value != null || !primitive)
+                setter.invokeExact(instance, value);
+        }
+
+        @SuppressWarnings("unchecked")
+        private TypeAdapter<Object> adapterFor(Object value) {
+            if (value == null || primitive || value.getClass() == type)
+                return adapter;
+
+            return (TypeAdapter<Object>) gson.getAdapter(value.getClass());
+        }
+    }
+}
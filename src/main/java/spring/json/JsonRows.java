@@ -0,0 +1,75 @@
+package spring.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * Result of a {@link spring.annotation.RawJson} mapper method. Nothing is queried until the value
+ * is serialized; then the rows are written as a JSON array directly from the result set, so a
+ * value can only be written once per call of the mapper method.
+ */
+@JsonAdapter(JsonRows.Adapter.class)
+public final class JsonRows {
+    private final Source source;
+    private Supplier<? extends Exception> emptyResult;
+
+    /**
+     * Writes the rows of a query as a JSON array.
+     */
+    @FunctionalInterface
+    public interface Source {
+
+        /**
+         * @param emptyResult exception to fail with when there are no rows, or null to write an
+         *                    empty array
+         */
+        void write(JsonWriter out, Supplier<? extends Exception> emptyResult) throws IOException;
+    }
+
+    public JsonRows(Source source) {
+        this.source = source;
+    }
+
+    /**
+     * Fails the response with the supplied exception instead of writing an empty array, the way a
+     * handler would throw it after checking a list.
+     */
+    public JsonRows orElseThrow(Supplier<? extends Exception> emptyResult) {
+        this.emptyResult = emptyResult;
+        return this;
+    }
+
+    public void writeTo(JsonWriter out) throws IOException {
+        source.write(out, emptyResult);
+    }
+
+    /**
+     * Carries the exception of {@link #orElseThrow} through serialization; nothing has been
+     * written when it is thrown.
+     */
+    public static final class EmptyResultException extends RuntimeException {
+        public EmptyResultException(Exception cause) {
+            super(cause.getMessage(), cause, false, false);
+        }
+    }
+
+    static final class Adapter extends TypeAdapter<JsonRows> {
+        @Override
+        public void write(JsonWriter out, JsonRows value) throws IOException {
+            if (value == null)
+                out.nullValue();
+            else
+                value.writeTo(out);
+        }
+
+        @Override
+        public JsonRows read(JsonReader in) {
+            throw new UnsupportedOperationException("JsonRows can only be written");
+        }
+    }
+}
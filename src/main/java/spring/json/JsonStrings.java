@@ -0,0 +1,72 @@
+package spring.json;
+
+/**
+ * Quotes strings with the escaping {@link com.google.gson.stream.JsonWriter} applies, appending to
+ * a {@link StringBuilder} instead of a {@link java.io.Writer}.
+ */
+final class JsonStrings {
+    private static final String[] REPLACEMENT_CHARS = new String[128];
+    private static final String[] HTML_SAFE_REPLACEMENT_CHARS;
+
+    static {
+        for (int i = 0; i < 0x20; i++) {
+            REPLACEMENT_CHARS[i] = String.format("\\u%04x", i);
+        }
+
+        REPLACEMENT_CHARS['"'] = "\\\"";
+        REPLACEMENT_CHARS['\\'] = "\\\\";
+        REPLACEMENT_CHARS['\t'] = "\\t";
+        REPLACEMENT_CHARS['\b'] = "\\b";
+        REPLACEMENT_CHARS['\n'] = "\\n";
+        REPLACEMENT_CHARS['\r'] = "\\r";
+        REPLACEMENT_CHARS['\f'] = "\\f";
+        HTML_SAFE_REPLACEMENT_CHARS = REPLACEMENT_CHARS.clone();
+        HTML_SAFE_REPLACEMENT_CHARS['<'] = "\\u003c";
+        HTML_SAFE_REPLACEMENT_CHARS['>'] = "\\u003e";
+        HTML_SAFE_REPLACEMENT_CHARS['&'] = "\\u0026";
+        HTML_SAFE_REPLACEMENT_CHARS['='] = "\\u003d";
+        HTML_SAFE_REPLACEMENT_CHARS['\''] = "\\u0027";
+    }
+
+    private JsonStrings() {
+    }
+
+    static void quote(StringBuilder sb, String value, boolean htmlSafe) {
+        String[] replacements = htmlSafe ? HTML_SAFE_REPLACEMENT_CHARS : REPLACEMENT_CHARS;
+        sb.append('"');
+        int last = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c < 128) {
+                replacement = replacements[c];
+                if (replacement == null)
+                    continue;
+            } else if (c == '\u2028') {
+                replacement = "\\u2028";
+            } else if (c == '\u2029') {
+                replacement = "\\u2029";
+            } else {
+                continue;
+            }
+
+            if (last < i)
+                sb.append(value, last, i);
+
+            sb.append(replacement);
+            last = i + 1;
+        }
+
+        if (last < length)
+            sb.append(value, last, length);
+
+        sb.append('"');
+    }
+
+    static String quote(String value, boolean htmlSafe) {
+        StringBuilder sb = new StringBuilder(value.length() + 2);
+        quote(sb, value, htmlSafe);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,134 @@
+package spring.json;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Serves {@link FieldAccessTypeAdapter}s for registered DTO classes instead of Gson's reflective
+ * adapter. {@link #registerTypes(Type)} registers every eligible class reachable from a type: its
+ * type arguments, array components and field types. Eligible are concrete, non-generic classes
+ * outside the JDK with a no-argument constructor; records, enums and everything else stay with
+ * Gson.
+ * <p>
+ * Registered classes are bound by field name or {@code @SerializedName}; naming policies and
+ * exclusion strategies of the {@link Gson} instance don't apply to them.
+ */
+public class TypeAdapterRegistry implements TypeAdapterFactory {
+    private static final Logger LOGGER = Logger.getLogger(TypeAdapterRegistry.class.getName());
+
+    private final Set<Class<?>> types = ConcurrentHashMap.newKeySet();
+
+    public void registerTypes(Type type) {
+        registerTypes(type, new HashSet<>());
+    }
+
+    public Set<Class<?>> getTypes() {
+        return Set.copyOf(types);
+    }
+
+    /**
+     * Builds the adapters of all registered classes, so the first request doesn't pay for it.
+     */
+    public void warmUp(Gson gson) {
+        for (Class<?> type : types) {
+            gson.getAdapter(type);
+        }
+
+        LOGGER.fine(() -> "Prepared JSON adapters for " + types.size() + " types");
+    }
+
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> typeToken) {
+        if (!(typeToken.getType() instanceof Class<?> type) || !types.contains(type))
+            return null;
+
+        return FieldAccessTypeAdapter.create(gson, typeToken.getRawType(), isCompact(gson));
+    }
+
+    private static boolean isCompact(Gson gson) {
+        StringWriter probe = new StringWriter();
+        try (JsonWriter writer = gson.newJsonWriter(probe)) {
+            writer.beginArray().value(1).value(2).endArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return probe.toString().equals("[1,2]");
+    }
+
+    private void registerTypes(Type type, Set<Type> visited) {
+        if (!visited.add(type))
+            return;
+
+        if (type instanceof ParameterizedType parameterized) {
+            for (Type argument : parameterized.getActualTypeArguments()) {
+                registerTypes(argument, visited);
+            }
+        } else if (type instanceof GenericArrayType array) {
+            registerTypes(array.getGenericComponentType(), visited);
+        } else if (type instanceof WildcardType wildcard) {
+            for (Type bound : wildcard.getUpperBounds()) {
+                registerTypes(bound, visited);
+            }
+        } else if (type instanceof Class<?> c) {
+            if (c.isArray()) {
+                registerTypes(c.getComponentType(), visited);
+                return;
+            }
+
+            if (!isEligible(c))
+                return;
+
+            types.add(c);
+            for (Class<?> current = c; current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (FieldAccessTypeAdapter.isBound(field))
+                        registerTypes(field.getGenericType(), visited);
+                }
+            }
+        }
+    }
+
+    private static boolean isEligible(Class<?> c) {
+        if (c.isPrimitive() || c.isInterface() || c.isEnum() || c.isRecord() || c.isAnonymousClass() || c.isLocalClass())
+            return false;
+
+        int modifiers = c.getModifiers();
+        if (Modifier.isAbstract(modifiers) || c.isMemberClass() && !Modifier.isStatic(modifiers))
+            return false;
+
+        String name = c.getName();
+        if (name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.") || name.startsWith("com.google.gson."))
+            return false;
+
+        for (Class<?> current = c; current != Object.class; current = current.getSuperclass()) {
+            if (current.getTypeParameters().length > 0)
+                return false;
+        }
+
+        for (Constructor<?> constructor : c.getDeclaredConstructors()) {
+            if (constructor.getParameterCount() == 0)
+                return true;
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,9 @@
+package spring.metrics;
+
+/**
+ * Writes one or more metric families when the registry is scraped.
+ */
+@FunctionalInterface
+public interface Collector {
+    void collect(MetricWriter writer);
+}
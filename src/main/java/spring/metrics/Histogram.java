@@ -0,0 +1,63 @@
+package spring.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with fixed bucket bounds. Each bucket is a striped {@link LongAdder}, so
+ * concurrent recordings don't contend on a shared counter.
+ */
+public class Histogram {
+    public static final double[] DEFAULT_SECONDS_BUCKETS =
+            {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private final double[] boundsSeconds;
+    private final long[] boundsNanos;
+    private final LongAdder[] buckets;
+    private final LongAdder sumNanos = new LongAdder();
+
+    public Histogram() {
+        this(DEFAULT_SECONDS_BUCKETS);
+    }
+
+    public Histogram(double[] boundsSeconds) {
+        this.boundsSeconds = boundsSeconds.clone();
+        boundsNanos = new long[boundsSeconds.length];
+        for (int i = 0; i < boundsSeconds.length; i++) {
+            boundsNanos[i] = (long) (boundsSeconds[i] * TimeUnit.SECONDS.toNanos(1));
+        }
+
+        buckets = new LongAdder[boundsSeconds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        int bucket = 0;
+        while (bucket < boundsNanos.length && nanos > boundsNanos[bucket])
+            bucket++;
+
+        buckets[bucket].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Writes the cumulative {@code _bucket}, {@code _sum} and {@code _count} samples of this
+     * histogram with the given labels.
+     */
+    public void write(MetricWriter writer, String name, String... labels) {
+        String[] bucketLabels = new String[labels.length + 2];
+        System.arraycopy(labels, 0, bucketLabels, 0, labels.length);
+        bucketLabels[labels.length] = "le";
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            bucketLabels[labels.length + 1] = i < boundsSeconds.length ? String.valueOf(boundsSeconds[i]) : "+Inf";
+            writer.sample(name + "_bucket", cumulative, bucketLabels);
+        }
+
+        writer.sample(name + "_sum", sumNanos.sum() / (double) TimeUnit.SECONDS.toNanos(1), labels);
+        writer.sample(name + "_count", cumulative, labels);
+    }
+}
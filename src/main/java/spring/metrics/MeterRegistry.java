@@ -0,0 +1,47 @@
+package spring.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Metrics of the application, written in Prometheus text format on {@link #scrape()}. Request
+ * metrics are recorded per route template, which keeps label cardinality bounded.
+ */
+public class MeterRegistry {
+    private final List<RouteMetrics> routes = new CopyOnWriteArrayList<>();
+    private final List<Collector> collectors = new CopyOnWriteArrayList<>();
+
+    public RouteMetrics routeMetrics(String method, String route) {
+        RouteMetrics metrics = new RouteMetrics(method, route);
+        routes.add(metrics);
+        return metrics;
+    }
+
+    public void register(Collector collector) {
+        collectors.add(collector);
+    }
+
+    public void gauge(String name, String help, DoubleSupplier value) {
+        register(writer -> writer.family(name, "gauge", help).sample(name, value.getAsDouble()));
+    }
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        MetricWriter writer = new MetricWriter(out);
+        if (!routes.isEmpty()) {
+            writer.family("http_server_requests_total", "counter", "Completed HTTP requests by route and status class.");
+            routes.forEach(route -> route.writeRequests(writer));
+            writer.family("http_server_requests_in_flight", "gauge", "HTTP requests currently being handled.");
+            routes.forEach(route -> route.writeInFlight(writer));
+            writer.family("http_server_request_duration_seconds", "histogram", "HTTP request latency.");
+            routes.forEach(route -> route.writeLatency(writer));
+        }
+
+        for (Collector collector : collectors) {
+            collector.collect(writer);
+        }
+
+        return out.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package spring.metrics;
+
+/**
+ * Prometheus text exposition format. Every family starts with {@link #family} followed by its
+ * samples; labels are given as alternating names and values.
+ */
+public class MetricWriter {
+    private final StringBuilder out;
+
+    MetricWriter(StringBuilder out) {
+        this.out = out;
+    }
+
+    public MetricWriter family(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    public MetricWriter sample(String name, long value, String... labels) {
+        appendName(name, labels);
+        out.append(value).append('\n');
+        return this;
+    }
+
+    public MetricWriter sample(String name, double value, String... labels) {
+        appendName(name, labels);
+        appendDouble(value);
+        out.append('\n');
+        return this;
+    }
+
+    private void appendName(String name, String[] labels) {
+        out.append(name);
+        if (labels.length > 0) {
+            out.append('{');
+            for (int i = 0; i < labels.length; i += 2) {
+                if (i > 0)
+                    out.append(',');
+
+                out.append(labels[i]).append("=\"");
+                appendEscaped(labels[i + 1]);
+                out.append('"');
+            }
+
+            out.append('}');
+        }
+
+        out.append(' ');
+    }
+
+    private void appendDouble(double value) {
+        if (value == Double.POSITIVE_INFINITY)
+            out.append("+Inf");
+        else if (value == Double.NEGATIVE_INFINITY)
+            out.append("-Inf");
+        else
+            out.append(value);
+    }
+
+    private void appendEscaped(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+    }
+}
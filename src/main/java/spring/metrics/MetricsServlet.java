@@ -0,0 +1,22 @@
+package spring.metrics;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+public class MetricsServlet extends HttpServlet {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MeterRegistry meterRegistry;
+
+    public MetricsServlet(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType(CONTENT_TYPE);
+        resp.getWriter().write(meterRegistry.scrape());
+    }
+}
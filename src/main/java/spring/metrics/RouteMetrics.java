@@ -0,0 +1,53 @@
+package spring.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request metrics of a single route template.
+ */
+public class RouteMetrics {
+    private static final String[] STATUS_CLASSES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
+
+    private final String method;
+    private final String route;
+    private final LongAdder[] statusCounts = new LongAdder[STATUS_CLASSES.length];
+    private final LongAdder inFlight = new LongAdder();
+    private final Histogram latency = new Histogram();
+
+    public RouteMetrics(String method, String route) {
+        this.method = method;
+        this.route = route;
+        for (int i = 0; i < statusCounts.length; i++) {
+            statusCounts[i] = new LongAdder();
+        }
+    }
+
+    public void started() {
+        inFlight.increment();
+    }
+
+    public void finished(int status, long nanos) {
+        inFlight.decrement();
+        int statusClass = status / 100 - 1;
+        if (statusClass >= 0 && statusClass < statusCounts.length)
+            statusCounts[statusClass].increment();
+
+        latency.record(nanos);
+    }
+
+    void writeRequests(MetricWriter writer) {
+        for (int i = 0; i < statusCounts.length; i++) {
+            long count = statusCounts[i].sum();
+            if (count > 0)
+                writer.sample("http_server_requests_total", count, "method", method, "route", route, "status", STATUS_CLASSES[i]);
+        }
+    }
+
+    void writeInFlight(MetricWriter writer) {
+        writer.sample("http_server_requests_in_flight", inFlight.sum(), "method", method, "route", route);
+    }
+
+    void writeLatency(MetricWriter writer) {
+        latency.write(writer, "http_server_request_duration_seconds", "method", method, "route", route);
+    }
+}
@@ -0,0 +1,77 @@
+package spring.server;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletException;
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.apache.catalina.valves.ValveBase;
+import spring.accesslog.AccessLog;
+import spring.config.MethodHandler;
+
+import java.io.IOException;
+
+/**
+ * Feeds Tomcat requests to the {@link AccessLog}, using the route template of the handler the
+ * dispatcher selected and the raw URI otherwise.
+ */
+class AccessLogValve extends ValveBase {
+    private final AccessLog accessLog;
+
+    AccessLogValve(AccessLog accessLog) {
+        super(true);
+        this.accessLog = accessLog;
+    }
+
+    @Override
+    public void invoke(Request request, Response response) throws IOException, ServletException {
+        long start = System.nanoTime();
+        try {
+            getNext().invoke(request, response);
+        } finally {
+            if (request.isAsyncStarted())
+                request.getAsyncContext().addListener(new AsyncCompletionListener(request, response, start));
+            else
+                log(request, response, start);
+        }
+    }
+
+    private void log(Request request, Response response, long start) {
+        Object handler = request.getAttribute(DispatcherServlet.HANDLER_ATTRIBUTE);
+        String route = handler instanceof MethodHandler methodHandler ? methodHandler.getRouteTemplate() : request.getDecodedRequestURI();
+        accessLog.log(System.currentTimeMillis(), request.getMethod(), route, response.getStatus(),
+                response.getBytesWritten(false), System.nanoTime() - start);
+    }
+
+    /**
+     * Logs streamed responses once they end rather than when the request thread returns.
+     */
+    private class AsyncCompletionListener implements AsyncListener {
+        private final Request request;
+        private final Response response;
+        private final long start;
+
+        AsyncCompletionListener(Request request, Response response, long start) {
+            this.request = request;
+            this.response = response;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            log(request, response, start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -2,55 +2,95 @@ package spring.server;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import spring.annotation.*;
+import spring.cache.CachePolicy;
+import spring.cache.CachedResponse;
+import spring.cache.ResponseCache;
 import spring.config.MethodHandler;
 import spring.dic.ApplicationContext;
+import spring.dic.InjectionPlan;
+import spring.dic.scope.RequestAttributes;
+import spring.dic.scope.RequestContextHolder;
 import spring.exception.BeanCreationException;
+import spring.exception.HandlerNotFoundException;
+import spring.exception.ResponseException;
+import spring.json.JsonRows;
+import spring.json.TypeAdapterRegistry;
+import spring.metrics.MeterRegistry;
+import spring.metrics.RouteMetrics;
 
 import java.io.*;
 import java.lang.annotation.Annotation;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class DispatcherServlet extends HttpServlet {
+    private static final Logger LOGGER = Logger.getLogger(DispatcherServlet.class.getName());
+    public static final String HANDLER_ATTRIBUTE = DispatcherServlet.class.getName() + ".HANDLER";
+    /**
+     * Set to {@link Boolean#TRUE} once the controller method runs, unlike requests answered by an
+     * interceptor or from the response cache.
+     */
+    public static final String INVOKED_ATTRIBUTE = DispatcherServlet.class.getName() + ".INVOKED";
+    private static final String ROUTE_ATTRIBUTE = DispatcherServlet.class.getName() + ".ROUTE";
     private static final Pattern PATH_PARAMS_PATTERN = Pattern.compile("\\{\\w+}");
     private static final String REPLACEMENT_PATTERN_STR = "[\\\\w]+";
+    private static final long DEFAULT_MAX_BODY_SIZE = 10L << 20;
 
-    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private ResponseWriter responseWriter = new ResponseWriter(gson);
+    private final ExceptionHandlerResolver exceptionHandlerResolver = new ExceptionHandlerResolver();
     public Map<String, MethodHandler> mappings = new HashMap<>();
     public Map<Pattern, MethodHandler> starMappings = new HashMap<>(); // posts/*/comments, posts/*
+    private final List<RouteDefinition> routes = new ArrayList<>();
+    private final Map<String, MethodHandler> routeHandlers = new HashMap<>();
+    private final List<WebMvcConfigurer> configurers = new ArrayList<>();
+    private RouteMetrics unmatchedMetrics;
+    private ResponseCache responseCache;
+    private RequestBodyReader requestBodyReader = new RequestBodyReader(gson, DEFAULT_MAX_BODY_SIZE, Long.MAX_VALUE, Long.MAX_VALUE);
+    private SseHandler sseHandler = new SseHandler(gson, TimeUnit.SECONDS.toMillis(15));
+
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        RequestAttributes attributes = RequestContextHolder.bind();
+        try {
+            super.service(req, resp);
+        } finally {
+            RequestContextHolder.reset(attributes);
+        }
+    }
 
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         String path = buildPath(req);
-        PrintWriter writer = resp.getWriter();
-        processRequest(path, writer, req);
+        processRequest(path, req, resp);
     }
 
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         String path = buildPath(req);
-        PrintWriter writer = resp.getWriter();
-        processRequest(path, writer, req);
+        processRequest(path, req, resp);
     }
 
     protected void doPut(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         String path = buildPath(req);
-        PrintWriter writer = resp.getWriter();
-        processRequest(path, writer, req);
+        processRequest(path, req, resp);
     }
 
     protected void doDelete(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         String path = buildPath(req);
-        PrintWriter writer = resp.getWriter();
-        processRequest(path, writer, req);
+        processRequest(path, req, resp);
     }
 
     private String buildPath(HttpServletRequest req) {
@@ -70,45 +110,178 @@ public class DispatcherServlet extends HttpServlet {
         return path.toString();
     }
 
-    private void processRequest(String path, PrintWriter writer, HttpServletRequest req) throws ServletException, IOException {
-        String requestMethod = req.getMethod();
-        String mapping = requestMethod + path;
-        MethodHandler handler = mappings.get(mapping);
-        if (handler != null)
-            processNormalRequest(writer, req, handler);
+    private void processRequest(String path, HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        Route route = resolve(req, path);
+        if (route.handler() != null)
+            processNormalRequest(req, resp, route.handler());
         else
-            processPatternRequest(path, writer, req, requestMethod);
+            processPatternRequest(path, req, resp, req.getMethod(), route.patterns());
     }
 
-    private void processNormalRequest(PrintWriter writer, HttpServletRequest req, MethodHandler handler) throws IOException, ServletException {
-        Object arg = null;
-        for (Parameter parameter : handler.parameters) {
-            if (parameter.getDeclaredAnnotation(RequestBody.class) != null) {
-                Class<?> type = parameter.getType();
-                arg = gson.fromJson(new InputStreamReader(req.getInputStream()), type);
+    /**
+     * Finds the handlers of a request once. Filters asking {@link #getHandler(HttpServletRequest)}
+     * before the request is dispatched leave the result in a request attribute for the dispatcher,
+     * so the route patterns are matched a single time.
+     */
+    private Route resolve(HttpServletRequest req, String path) {
+        String mapping = req.getMethod() + path;
+        if (req.getAttribute(ROUTE_ATTRIBUTE) instanceof Route route && route.mapping().equals(mapping))
+            return route;
+
+        MethodHandler handler = mappings.get(mapping);
+        Route route = handler != null ? new Route(mapping, handler, List.of())
+                : new Route(mapping, null, getMatchingPatterns(path, req.getMethod()));
+        req.setAttribute(ROUTE_ATTRIBUTE, route);
+        return route;
+    }
+
+    private void processNormalRequest(HttpServletRequest req, HttpServletResponse resp, MethodHandler handler) throws IOException, ServletException {
+        handle(req, resp, handler, () -> {
+            Object arg = null;
+            for (Parameter parameter : handler.parameters) {
+                if (parameter.getDeclaredAnnotation(RequestBody.class) != null)
+                    arg = requestBodyReader.read(req, parameter);
             }
-        }
 
-        Method method = handler.method;
-        Object instance = handler.instance;
-        try {
-            Object invokedMethod = arg == null ? method.invoke(instance) : method.invoke(instance, arg);
-            String methodResult = gson.toJson(invokedMethod);
-            writer.println(methodResult);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw new ServletException(e);
-        }
+            return arg == null ? new Object[0] : new Object[]{arg};
+        });
     }
 
-    private void processPatternRequest(String path, PrintWriter writer, HttpServletRequest req, String requestMethod) throws IOException, ServletException {
-        List<Map.Entry<Pattern, MethodHandler>> matchingPatterns = getMatchingPatterns(path, requestMethod);
-        if (matchingPatterns.size() == 0)
+    private void processPatternRequest(String path, HttpServletRequest req, HttpServletResponse resp, String requestMethod,
+                                       List<Map.Entry<Pattern, MethodHandler>> matchingPatterns) throws IOException, ServletException {
+        if (matchingPatterns.size() == 0) {
+            long start = System.nanoTime();
+            RouteMetrics metrics = unmatchedMetrics;
+            if (metrics != null)
+                metrics.started();
+
+            try {
+                handleException(req, resp, new HandlerNotFoundException(requestMethod, path));
+            } finally {
+                if (metrics != null)
+                    metrics.finished(resp.getStatus(), System.nanoTime() - start);
+            }
+
             return;
+        }
 
         for (Map.Entry<Pattern, MethodHandler> patternMethodHandlerEntry : matchingPatterns) {
             Pattern pattern = patternMethodHandlerEntry.getKey();
             MethodHandler methodHandler = patternMethodHandlerEntry.getValue();
-            processReq(path, writer, pattern, methodHandler, req);
+            processReq(path, pattern, methodHandler, req, resp);
+        }
+    }
+
+    /**
+     * Runs the handler inside its interceptor chain and writes its result as JSON. Responses of
+     * cacheable routes are served from the response cache; {@code postHandle} then gets
+     * {@code null} as result when the controller didn't run.
+     */
+    private void handle(HttpServletRequest req, HttpServletResponse resp, MethodHandler handler, ArgumentResolver argumentResolver) throws IOException, ServletException {
+        HandlerInterceptor[] interceptors = handler.getInterceptors();
+        RouteMetrics metrics = handler.getMetrics();
+        req.setAttribute(HANDLER_ATTRIBUTE, handler);
+        long start = System.nanoTime();
+        if (metrics != null)
+            metrics.started();
+
+        int applied = 0;
+        Exception failure = null;
+        boolean rethrown = false;
+        try {
+            for (; applied < interceptors.length; applied++) {
+                if (!interceptors[applied].preHandle(req, resp, handler))
+                    return;
+            }
+
+            Object[] args = argumentResolver.resolve();
+            CachePolicy cachePolicy = handler.getCachePolicy();
+            if (cachePolicy != null && cachePolicy.isCacheable()) {
+                CachedResponse response = responseCache.get(cachePolicy.cacheName(), handler.getRouteTemplate(), args,
+                        cachePolicy.ttlNanos(), () -> responseWriter.serialize(invoke(req, handler, args)));
+                postHandle(interceptors, req, resp, handler, null);
+                responseWriter.write(resp, response);
+                return;
+            }
+
+            Object result;
+            try {
+                result = invoke(req, handler, args);
+            } finally {
+                // a handler that failed may still have changed data before it did
+                if (cachePolicy != null) {
+                    for (String cacheName : cachePolicy.evictedCaches()) {
+                        responseCache.evict(cacheName);
+                    }
+                }
+            }
+
+            postHandle(interceptors, req, resp, handler, result);
+            if (SseHandler.isStream(result))
+                sseHandler.start(req, resp, result);
+            else
+                responseWriter.writeResult(resp, result);
+        } catch (Exception e) {
+            failure = e instanceof InvocationTargetException && e.getCause() instanceof Exception cause ? cause
+                    : e instanceof JsonRows.EmptyResultException && e.getCause() instanceof Exception cause ? cause : e;
+            rethrown = true;
+            handleException(req, resp, failure);
+            rethrown = false;
+        } finally {
+            triggerAfterCompletion(interceptors, applied, req, resp, handler, failure);
+            // the container turns a propagating failure into a 500 after this, so the status isn't set yet
+            if (metrics != null)
+                metrics.finished(rethrown ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : resp.getStatus(), System.nanoTime() - start);
+        }
+    }
+
+    private static Object invoke(HttpServletRequest req, MethodHandler handler, Object[] args) throws InvocationTargetException, IllegalAccessException {
+        req.setAttribute(INVOKED_ATTRIBUTE, Boolean.TRUE);
+        return handler.invoke(args);
+    }
+
+    /**
+     * Writes the response of the matching {@code @ExceptionHandler}; without one, response
+     * exceptions and malformed input are written as JSON errors and anything else is rethrown.
+     */
+    private void handleException(HttpServletRequest req, HttpServletResponse resp, Exception e) throws IOException, ServletException {
+        if (exceptionHandlerResolver.handle(e, req, resp, responseWriter))
+            return;
+
+        if (e instanceof ResponseException responseException) {
+            responseWriter.writeError(resp, responseException.statusCode, responseException.message);
+            return;
+        }
+
+        if (e instanceof JsonParseException || e instanceof NumberFormatException) {
+            responseWriter.writeError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        if (e instanceof IOException ioException)
+            throw ioException;
+
+        if (e instanceof ServletException servletException)
+            throw servletException;
+
+        throw new ServletException(e);
+    }
+
+    private static void postHandle(HandlerInterceptor[] interceptors, HttpServletRequest req, HttpServletResponse resp,
+                                   MethodHandler handler, Object result) throws Exception {
+        for (int i = interceptors.length - 1; i >= 0; i--) {
+            interceptors[i].postHandle(req, resp, handler, result);
+        }
+    }
+
+    private static void triggerAfterCompletion(HandlerInterceptor[] interceptors, int applied, HttpServletRequest req,
+                                               HttpServletResponse resp, MethodHandler handler, Exception failure) {
+        for (int i = Math.min(applied, interceptors.length) - 1; i >= 0; i--) {
+            try {
+                interceptors[i].afterCompletion(req, resp, handler, failure);
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Interceptor afterCompletion failed", e);
+            }
         }
     }
 
@@ -124,34 +297,26 @@ public class DispatcherServlet extends HttpServlet {
         return matchingPatterns;
     }
 
-    private void processReq(String path, PrintWriter writer, Pattern pattern, MethodHandler methodHandler, HttpServletRequest req) throws IOException, ServletException {
-        String[] splitPath = path.split("/");
-        String queryString = req.getQueryString();
-        if (queryString != null) {
-            splitPath = queryString.split("=");
-            String[] curSplitPath = new String[splitPath.length / 2];
-            int counter = 0;
-            for (int i = 1; i <= curSplitPath.length; i += 2) {
-                curSplitPath[counter++] = splitPath[i];
-            }
-
-            splitPath = curSplitPath;
-        }
+    private void processReq(String path, Pattern pattern, MethodHandler methodHandler, HttpServletRequest req, HttpServletResponse resp) throws IOException, ServletException {
+        handle(req, resp, methodHandler, () -> {
+            String[] splitPath = path.split("/");
+            String queryString = req.getQueryString();
+            if (queryString != null) {
+                splitPath = queryString.split("=");
+                String[] curSplitPath = new String[splitPath.length / 2];
+                int counter = 0;
+                for (int i = 1; i <= curSplitPath.length; i += 2) {
+                    curSplitPath[counter++] = splitPath[i];
+                }
 
-        String[] patternSplit = pattern.toString().substring(req.getMethod().length()).split("/");
-        Object[] methodArgs = getMethodArgs(splitPath, patternSplit, methodHandler, req);
-        Object invokedMethod;
-        try {
-            invokedMethod = methodHandler.invoke(methodArgs);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw new ServletException(e);
-        }
+                splitPath = curSplitPath;
+            }
 
-        String printResponse = gson.toJson(invokedMethod);
-        writer.println(printResponse);
+            String[] patternSplit = pattern.toString().substring(req.getMethod().length()).split("/");
+            return getMethodArgs(splitPath, patternSplit, methodHandler, req);
+        });
     }
 
-
     private Object[] getMethodArgs(String[] splitPath, String[] patternSplit, MethodHandler
             methodHandler, HttpServletRequest req) throws IOException {
         List<Object> methodArgs = new ArrayList<>();
@@ -172,11 +337,8 @@ public class DispatcherServlet extends HttpServlet {
             }
 
             RequestBody requestBodyAnnotation = parameter.getDeclaredAnnotation(RequestBody.class);
-            if (requestBodyAnnotation != null) {
-                Class<?> type = parameter.getType();
-                Object object = gson.fromJson(new InputStreamReader(req.getInputStream()), type);
-                methodArgs.add(object);
-            }
+            if (requestBodyAnnotation != null)
+                methodArgs.add(requestBodyReader.read(req, parameter));
         }
 
         return methodArgs.toArray();
@@ -214,27 +376,202 @@ public class DispatcherServlet extends HttpServlet {
 
     public void addController(Class<?> c, Object classInstance, ApplicationContext context) throws
             BeanCreationException, IllegalAccessException {
-        RequestMapping requestMapping = c.getDeclaredAnnotation(RequestMapping.class);
-        String mapping = requestMapping.value() != null ? requestMapping.value()[0] : "";
         processFields(c, classInstance, context);
-        processMethods(c, classInstance, mapping);
+        registerController(c, () -> classInstance, null);
+    }
+
+    /**
+     * Registers a controller using routes recorded by an earlier run instead of reflecting over
+     * its methods and deriving path patterns again.
+     */
+    public void addController(Class<?> c, Object classInstance, ApplicationContext context, List<RouteDefinition> controllerRoutes) throws
+            BeanCreationException {
+        processFields(c, classInstance, context);
+        registerController(c, () -> classInstance, controllerRoutes);
+    }
+
+    /**
+     * Registers the routes of a controller that is created, together with its dependencies, on the
+     * first request that reaches it. {@code controllerRoutes} may be {@code null} to discover them.
+     */
+    public void addLazyController(Class<?> c, ApplicationContext context, List<RouteDefinition> controllerRoutes) throws
+            BeanCreationException {
+        registerController(c, new LazyController(c, context), controllerRoutes);
+    }
+
+    /**
+     * Creates the controllers behind the given routes (mapping keys such as {@code GET/posts/{id}})
+     * or controller class names ahead of the first request.
+     */
+    public void warmUp(Collection<String> routesOrControllers) {
+        for (String entry : routesOrControllers) {
+            MethodHandler handler = routeHandlers.get(entry);
+            if (handler != null) {
+                handler.getInstance();
+                continue;
+            }
+
+            boolean found = false;
+            for (MethodHandler methodHandler : routeHandlers.values()) {
+                if (methodHandler.method.getDeclaringClass().getName().equals(entry)) {
+                    methodHandler.getInstance();
+                    found = true;
+                }
+            }
+
+            if (!found)
+                throw new IllegalArgumentException("Unknown warm-up route or controller: " + entry);
+        }
+    }
+
+    public void addControllerAdvice(Object advice) throws BeanCreationException {
+        exceptionHandlerResolver.addAdvice(advice);
+    }
+
+    public void addConfigurer(WebMvcConfigurer configurer) {
+        configurers.add(configurer);
+    }
+
+    /**
+     * Resolves the interceptor chain of every registered route from the configurers' registries,
+     * once, so requests only walk a precomputed array.
+     */
+    public void initInterceptors() {
+        InterceptorRegistry registry = new InterceptorRegistry();
+        for (WebMvcConfigurer configurer : configurers) {
+            configurer.addInterceptors(registry);
+        }
+
+        for (Map.Entry<String, MethodHandler> entry : routeHandlers.entrySet()) {
+            entry.getValue().setInterceptors(registry.getInterceptors(routePath(entry.getKey())));
+        }
+    }
+
+    /**
+     * Creates the request metrics of every registered route, labelled with the route template.
+     */
+    public void initMetrics(MeterRegistry meterRegistry) {
+        for (Map.Entry<String, MethodHandler> entry : routeHandlers.entrySet()) {
+            String mapping = entry.getKey();
+            int start = mapping.indexOf('/');
+            String method = start < 0 ? mapping : mapping.substring(0, start);
+            MethodHandler handler = entry.getValue();
+            handler.setMetrics(meterRegistry.routeMetrics(method, handler.getRouteTemplate()));
+        }
+
+        unmatchedMetrics = meterRegistry.routeMetrics("ANY", "UNMATCHED");
     }
 
-    private void processFields(Class<?> c, Object instance, ApplicationContext applicationContext) throws
-            IllegalAccessException {
-        Field[] fields = c.getDeclaredFields();
-        for (Field field : fields) {
-            field.setAccessible(true);
-            Autowired autowired = field.getDeclaredAnnotation(Autowired.class);
-            if (autowired == null)
+    /**
+     * Switches to {@code configured}, or to the default pretty-printing {@link Gson} when
+     * {@code null}, with field-access adapters for every DTO reachable from a route's return type
+     * or {@link RequestBody} parameter. The adapters are built right away.
+     */
+    public void initGson(Gson configured) {
+        TypeAdapterRegistry registry = new TypeAdapterRegistry();
+        for (MethodHandler handler : routeHandlers.values()) {
+            registry.registerTypes(handler.method.getGenericReturnType());
+            for (Parameter parameter : handler.parameters) {
+                if (parameter.isAnnotationPresent(RequestBody.class))
+                    registry.registerTypes(parameter.getParameterizedType());
+            }
+        }
+
+        GsonBuilder builder = configured != null ? configured.newBuilder() : new GsonBuilder().setPrettyPrinting();
+        gson = builder.registerTypeAdapterFactory(registry).create();
+        registry.warmUp(gson);
+        responseWriter = new ResponseWriter(gson);
+        requestBodyReader = requestBodyReader.withGson(gson);
+        sseHandler = sseHandler.withGson(gson);
+    }
+
+    /**
+     * Sets the size limits of request bodies. Bodies bound to {@code Iterator} or {@code Stream}
+     * parameters are read while the handler runs and have their own byte and element limits.
+     */
+    public void initRequestBodyLimits(long maxBodySize, long maxStreamBodySize, long maxStreamElements) {
+        requestBodyReader = new RequestBodyReader(gson, maxBodySize, maxStreamBodySize, maxStreamElements);
+    }
+
+    /**
+     * Sets how often idle event streams get a heartbeat, {@code 0} to send none.
+     */
+    public void initEventStreams(long heartbeatIntervalMillis) {
+        sseHandler = new SseHandler(gson, heartbeatIntervalMillis);
+    }
+
+    public int getOpenEventStreams() {
+        return sseHandler.getOpenConnections();
+    }
+
+    /**
+     * Attaches the {@link Cacheable} and {@link CacheEvict} behaviour of every route to its handler.
+     */
+    public void initResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+        for (MethodHandler handler : routeHandlers.values()) {
+            Cacheable cacheable = handler.getAnnotation(Cacheable.class);
+            CacheEvict cacheEvict = handler.getAnnotation(CacheEvict.class);
+            if (cacheable == null && cacheEvict == null)
                 continue;
 
-            Object o = applicationContext.getInstance(field.getType());
+            handler.setCachePolicy(new CachePolicy(
+                    cacheable != null ? cacheable.value() : null,
+                    cacheable != null ? TimeUnit.MILLISECONDS.toNanos(cacheable.ttlMillis()) : 0,
+                    cacheEvict != null ? cacheEvict.value() : new String[0]));
+        }
+    }
+
+    /**
+     * Handler the request would be dispatched to, or {@code null}.
+     */
+    public MethodHandler getHandler(HttpServletRequest req) {
+        Route route = resolve(req, buildPath(req));
+        if (route.handler() != null)
+            return route.handler();
+
+        return route.patterns().isEmpty() ? null : route.patterns().get(0).getValue();
+    }
+
+    public Map<String, MethodHandler> getRouteHandlers() {
+        return Collections.unmodifiableMap(routeHandlers);
+    }
+
+    public List<RouteDefinition> getRoutes() {
+        return routes;
+    }
+
+    private void registerController(Class<?> c, Supplier<Object> instance, List<RouteDefinition> controllerRoutes) throws
+            BeanCreationException {
+        if (controllerRoutes == null) {
+            RequestMapping requestMapping = c.getDeclaredAnnotation(RequestMapping.class);
+            String mapping = requestMapping.value() != null ? requestMapping.value()[0] : "";
+            processMethods(c, instance, mapping);
+            return;
+        }
+
+        for (RouteDefinition route : controllerRoutes) {
+            Method method;
+            try {
+                method = route.resolveMethod(c);
+            } catch (NoSuchMethodException e) {
+                throw new BeanCreationException("Recorded route method not found: " + e.getMessage());
+            }
+
+            method.setAccessible(true);
+            validateMapping(route.mapping(), method);
+            registerRoute(route, new MethodHandler(method, instance));
+        }
+    }
+
+    private void processFields(Class<?> c, Object instance, ApplicationContext applicationContext) {
+        for (InjectionPlan.InjectedField field : InjectionPlan.of(c).getAutowiredFields()) {
+            Object o = applicationContext.resolveDependency(field.getType());
             field.set(instance, o);
         }
     }
 
-    private void processMethods(Class<?> c, Object instance, String mapping) throws BeanCreationException {
+    private void processMethods(Class<?> c, Supplier<Object> instance, String mapping) throws BeanCreationException {
         Method[] declaredMethods = c.getDeclaredMethods();
         for (Method method : declaredMethods) {
             method.setAccessible(true);
@@ -243,7 +580,7 @@ public class DispatcherServlet extends HttpServlet {
         }
     }
 
-    private void processMethodAnnotations(Object instance, String mapping, Method method, Annotation[]
+    private void processMethodAnnotations(Supplier<Object> instance, String mapping, Method method, Annotation[]
             annotations) throws BeanCreationException {
         for (Annotation annotation : annotations) {
             String methodStr = null;
@@ -274,7 +611,7 @@ public class DispatcherServlet extends HttpServlet {
         }
     }
 
-    private void putMappings(String requestMethod, Object instance, String mapping, Method method, String[]
+    private void putMappings(String requestMethod, Supplier<Object> instance, String mapping, Method method, String[]
             paths) throws BeanCreationException {
         String methodPath = requestMethod + mapping;
         if (paths == null || paths.length == 0) {
@@ -290,23 +627,80 @@ public class DispatcherServlet extends HttpServlet {
         }
     }
 
-    private void addMapping(String combinedPath, Object instance, Method method) {
+    private void addMapping(String combinedPath, Supplier<Object> instance, Method method) {
         Matcher matcher = PATH_PARAMS_PATTERN.matcher(combinedPath);
-        MethodHandler methodHandler = new MethodHandler(method, instance);
-        if (!matcher.find()) {
-            mappings.put(combinedPath, methodHandler);
+        String pattern = null;
+        if (matcher.find())
+            pattern = matcher.replaceAll(REPLACEMENT_PATTERN_STR).replaceAll("\\?", "\\\\?");
+
+        registerRoute(RouteDefinition.of(method, combinedPath, pattern), new MethodHandler(method, instance));
+    }
+
+    private void registerRoute(RouteDefinition route, MethodHandler methodHandler) {
+        int start = route.mapping().indexOf('/');
+        methodHandler.setRouteTemplate(start < 0 ? "/" : route.mapping().substring(start));
+        routes.add(route);
+        routeHandlers.put(route.mapping(), methodHandler);
+        if (route.pattern() == null) {
+            mappings.put(route.mapping(), methodHandler);
             return;
         }
 
-        String pattern = matcher.replaceAll(REPLACEMENT_PATTERN_STR).replaceAll("\\?", "\\\\?");
-        Pattern compile = Pattern.compile(pattern);
+        Pattern compile = Pattern.compile(route.pattern());
         starMappings.put(compile, methodHandler);
     }
 
+    private static String routePath(String mapping) {
+        int start = mapping.indexOf('/');
+        if (start < 0)
+            return "/";
+
+        int query = mapping.indexOf('?', start);
+        return query < 0 ? mapping.substring(start) : mapping.substring(start, query);
+    }
+
     private void validateMapping(String mapping, Method method) throws BeanCreationException {
         if (mappings.containsKey(mapping)) {
             String message = String.format("Ambiguous mapping. Cannot map '%s' method.", method.getName());
             throw new BeanCreationException(message);
         }
     }
+
+    private interface ArgumentResolver {
+        Object[] resolve() throws Exception;
+    }
+
+    /**
+     * Handlers found for {@code mapping}: the exact one, or the matching patterns without one.
+     */
+    private record Route(String mapping, MethodHandler handler, List<Map.Entry<Pattern, MethodHandler>> patterns) {
+    }
+
+    private class LazyController implements Supplier<Object> {
+        private final Class<?> controllerClass;
+        private final ApplicationContext context;
+        private volatile Object instance;
+
+        LazyController(Class<?> controllerClass, ApplicationContext context) {
+            this.controllerClass = controllerClass;
+            this.context = context;
+        }
+
+        @Override
+        public Object get() {
+            Object result = instance;
+            if (result != null)
+                return result;
+
+            synchronized (this) {
+                if (instance == null) {
+                    Object created = context.getInstance(controllerClass);
+                    processFields(controllerClass, created, context);
+                    instance = created;
+                }
+
+                return instance;
+            }
+        }
+    }
 }
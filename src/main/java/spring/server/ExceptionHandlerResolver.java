@@ -0,0 +1,134 @@
+package spring.server;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import spring.annotation.ExceptionHandler;
+import spring.exception.BeanCreationException;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link ExceptionHandler} methods of the registered {@code @ControllerAdvice} beans. The handler
+ * for a concrete exception type is the one registered for its nearest superclass, looked up once
+ * per type.
+ */
+public class ExceptionHandlerResolver {
+    private static final HandlerMethod NO_HANDLER = new HandlerMethod(null, null, null);
+
+    private final Map<Class<?>, HandlerMethod> handlers = new HashMap<>();
+    private volatile ClassValue<HandlerMethod> handlersByType = createCache();
+
+    public synchronized void addAdvice(Object advice) throws BeanCreationException {
+        for (Method method : advice.getClass().getDeclaredMethods()) {
+            ExceptionHandler exceptionHandler = method.getDeclaredAnnotation(ExceptionHandler.class);
+            if (exceptionHandler == null)
+                continue;
+
+            method.setAccessible(true);
+            HandlerMethod handlerMethod = new HandlerMethod(advice, method, argumentKinds(method));
+            for (Class<?> exceptionType : exceptionTypes(method, exceptionHandler)) {
+                if (handlers.putIfAbsent(exceptionType, handlerMethod) != null)
+                    throw new BeanCreationException("Ambiguous @ExceptionHandler method mapped for " + exceptionType.getName());
+            }
+        }
+
+        handlersByType = createCache();
+    }
+
+    /**
+     * Writes the result of the handler for {@code ex}; returns {@code false} when there is none.
+     */
+    public boolean handle(Throwable ex, HttpServletRequest req, HttpServletResponse resp, ResponseWriter responseWriter)
+            throws IOException, ServletException {
+        HandlerMethod handlerMethod = handlersByType.get(ex.getClass());
+        if (handlerMethod == NO_HANDLER)
+            return false;
+
+        Object result;
+        try {
+            result = handlerMethod.invoke(ex, req, resp);
+        } catch (InvocationTargetException e) {
+            throw new ServletException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new ServletException(e);
+        }
+
+        if (!resp.isCommitted())
+            resp.resetBuffer();
+
+        responseWriter.writeResult(resp, result);
+        return true;
+    }
+
+    private ClassValue<HandlerMethod> createCache() {
+        return new ClassValue<>() {
+            @Override
+            protected HandlerMethod computeValue(Class<?> exceptionType) {
+                synchronized (ExceptionHandlerResolver.this) {
+                    for (Class<?> type = exceptionType; type != null; type = type.getSuperclass()) {
+                        HandlerMethod handlerMethod = handlers.get(type);
+                        if (handlerMethod != null)
+                            return handlerMethod;
+                    }
+                }
+
+                return NO_HANDLER;
+            }
+        };
+    }
+
+    private static Class<?>[] exceptionTypes(Method method, ExceptionHandler exceptionHandler) throws BeanCreationException {
+        if (exceptionHandler.value().length > 0)
+            return exceptionHandler.value();
+
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (Throwable.class.isAssignableFrom(parameterType))
+                return new Class<?>[]{parameterType};
+        }
+
+        throw new BeanCreationException("No exception type declared for @ExceptionHandler method " + method.getName());
+    }
+
+    private static ArgumentKind[] argumentKinds(Method method) throws BeanCreationException {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        ArgumentKind[] kinds = new ArgumentKind[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Class<?> type = parameterTypes[i];
+            if (Throwable.class.isAssignableFrom(type))
+                kinds[i] = ArgumentKind.EXCEPTION;
+            else if (type.isAssignableFrom(HttpServletRequest.class))
+                kinds[i] = ArgumentKind.REQUEST;
+            else if (type.isAssignableFrom(HttpServletResponse.class))
+                kinds[i] = ArgumentKind.RESPONSE;
+            else
+                throw new BeanCreationException("Unsupported @ExceptionHandler parameter type " + type.getName() + " in " + method.getName());
+        }
+
+        return kinds;
+    }
+
+    private enum ArgumentKind {
+        EXCEPTION, REQUEST, RESPONSE
+    }
+
+    private record HandlerMethod(Object bean, Method method, ArgumentKind[] argumentKinds) {
+        Object invoke(Throwable ex, HttpServletRequest req, HttpServletResponse resp)
+                throws InvocationTargetException, IllegalAccessException {
+            Object[] args = new Object[argumentKinds.length];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = switch (argumentKinds[i]) {
+                    case EXCEPTION -> ex;
+                    case REQUEST -> req;
+                    case RESPONSE -> resp;
+                };
+            }
+
+            return method.invoke(bean, args);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package spring.server;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Hooks around a controller method. The {@code handler} is the route's
+ * {@link spring.config.MethodHandler}.
+ */
+public interface HandlerInterceptor {
+    /**
+     * Called before the handler; returning {@code false} ends the request with whatever was written
+     * to the response so far.
+     */
+    default boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        return true;
+    }
+
+    /**
+     * Called after the handler returned and before its result is written.
+     */
+    default void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, Object result) throws Exception {
+    }
+
+    /**
+     * Called for every interceptor whose {@code preHandle} returned {@code true}, also when the
+     * request failed.
+     */
+    default void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
+    }
+}
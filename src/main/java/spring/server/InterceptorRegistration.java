@@ -0,0 +1,56 @@
+package spring.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Path patterns of a registered interceptor. Patterns use Ant syntax ({@code ?}, {@code *} and
+ * {@code **}) and are matched against route templates such as {@code /users/{id}}; an interceptor
+ * without include patterns applies to every route.
+ */
+public class InterceptorRegistration {
+    private final HandlerInterceptor interceptor;
+    private final List<PathPattern> includePatterns = new ArrayList<>();
+    private final List<PathPattern> excludePatterns = new ArrayList<>();
+
+    InterceptorRegistration(HandlerInterceptor interceptor) {
+        this.interceptor = interceptor;
+    }
+
+    public InterceptorRegistration addPathPatterns(String... patterns) {
+        for (String pattern : patterns) {
+            includePatterns.add(new PathPattern(pattern));
+        }
+
+        return this;
+    }
+
+    public InterceptorRegistration excludePathPatterns(String... patterns) {
+        for (String pattern : patterns) {
+            excludePatterns.add(new PathPattern(pattern));
+        }
+
+        return this;
+    }
+
+    HandlerInterceptor getInterceptor() {
+        return interceptor;
+    }
+
+    boolean matches(String routePath) {
+        for (PathPattern pattern : excludePatterns) {
+            if (pattern.matches(routePath))
+                return false;
+        }
+
+        if (includePatterns.isEmpty())
+            return true;
+
+        for (PathPattern pattern : includePatterns) {
+            if (pattern.matches(routePath))
+                return true;
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,27 @@
+package spring.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class InterceptorRegistry {
+    private final List<InterceptorRegistration> registrations = new ArrayList<>();
+
+    public InterceptorRegistration addInterceptor(HandlerInterceptor interceptor) {
+        if (interceptor == null)
+            throw new IllegalArgumentException("Interceptor is null!");
+
+        InterceptorRegistration registration = new InterceptorRegistration(interceptor);
+        registrations.add(registration);
+        return registration;
+    }
+
+    /**
+     * Interceptors that apply to the given route path, in registration order.
+     */
+    HandlerInterceptor[] getInterceptors(String routePath) {
+        return registrations.stream()
+                .filter(registration -> registration.matches(routePath))
+                .map(InterceptorRegistration::getInterceptor)
+                .toArray(HandlerInterceptor[]::new);
+    }
+}
@@ -0,0 +1,90 @@
+package spring.server;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Ant-style path pattern: {@code ?} matches one character, {@code *} any characters within a
+ * segment, {@code **} any number of segments and {@code {name}} one non-empty segment part.
+ */
+final class PathPattern {
+    private static final String ANY_SEGMENTS = "**";
+
+    private final String[] segments;
+    private final Pattern[] segmentPatterns;
+
+    PathPattern(String pattern) {
+        segments = split(pattern);
+        segmentPatterns = new Pattern[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            if (!segments[i].equals(ANY_SEGMENTS))
+                segmentPatterns[i] = compileSegment(segments[i]);
+        }
+    }
+
+    boolean matches(String path) {
+        return matches(0, split(path), 0);
+    }
+
+    private boolean matches(int patternIndex, String[] path, int pathIndex) {
+        while (patternIndex < segments.length) {
+            if (segments[patternIndex].equals(ANY_SEGMENTS)) {
+                if (patternIndex == segments.length - 1)
+                    return true;
+
+                for (int i = pathIndex; i <= path.length; i++) {
+                    if (matches(patternIndex + 1, path, i))
+                        return true;
+                }
+
+                return false;
+            }
+
+            if (pathIndex >= path.length || !segmentPatterns[patternIndex].matcher(path[pathIndex]).matches())
+                return false;
+
+            patternIndex++;
+            pathIndex++;
+        }
+
+        return pathIndex == path.length;
+    }
+
+    private static String[] split(String path) {
+        return Arrays.stream(path.split("/"))
+                .filter(segment -> !segment.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    private static Pattern compileSegment(String segment) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            int variableEnd = c == '{' ? segment.indexOf('}', i) : -1;
+            if (c != '*' && c != '?' && variableEnd < 0) {
+                literal.append(c);
+                continue;
+            }
+
+            if (!literal.isEmpty()) {
+                regex.append(Pattern.quote(literal.toString()));
+                literal.setLength(0);
+            }
+
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(".+");
+                i = variableEnd;
+            }
+        }
+
+        if (!literal.isEmpty())
+            regex.append(Pattern.quote(literal.toString()));
+
+        return Pattern.compile(regex.toString());
+    }
+}
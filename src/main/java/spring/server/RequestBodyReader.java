@@ -0,0 +1,185 @@
+package spring.server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import jakarta.servlet.http.HttpServletRequest;
+import spring.exception.ResponseException;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Binds {@code @RequestBody} parameters. {@link Iterator} and {@link Stream} parameters read the
+ * elements of a JSON array one at a time while the handler consumes them, so their memory use
+ * doesn't grow with the body; any other type is read whole.
+ */
+final class RequestBodyReader {
+    private final Gson gson;
+    private final long maxBodySize;
+    private final long maxStreamBodySize;
+    private final long maxStreamElements;
+
+    /**
+     * @param maxBodySize       byte limit of bodies read whole
+     * @param maxStreamBodySize byte limit of bodies read as a stream
+     * @param maxStreamElements element limit of bodies read as a stream
+     */
+    RequestBodyReader(Gson gson, long maxBodySize, long maxStreamBodySize, long maxStreamElements) {
+        this.gson = gson;
+        this.maxBodySize = maxBodySize;
+        this.maxStreamBodySize = maxStreamBodySize;
+        this.maxStreamElements = maxStreamElements;
+    }
+
+    RequestBodyReader withGson(Gson gson) {
+        return new RequestBodyReader(gson, maxBodySize, maxStreamBodySize, maxStreamElements);
+    }
+
+    Object read(HttpServletRequest req, Parameter parameter) throws IOException {
+        Class<?> type = parameter.getType();
+        boolean stream = type == Stream.class;
+        if (!stream && type != Iterator.class)
+            return gson.fromJson(new InputStreamReader(limit(req, maxBodySize), StandardCharsets.UTF_8), parameter.getParameterizedType());
+
+        Type elementType = Object.class;
+        if (parameter.getParameterizedType() instanceof ParameterizedType parameterized)
+            elementType = parameterized.getActualTypeArguments()[0];
+
+        InputStream body = limit(req, maxStreamBodySize);
+        JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        ElementIterator<?> iterator = new ElementIterator<>(reader, gson.getAdapter(TypeToken.get(elementType)), maxStreamElements);
+        if (!stream)
+            return iterator;
+
+        Spliterator<?> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    private static InputStream limit(HttpServletRequest req, long maxSize) throws IOException {
+        if (req.getContentLengthLong() > maxSize)
+            throw tooLarge(maxSize);
+
+        return new LimitedInputStream(req.getInputStream(), maxSize);
+    }
+
+    private static ResponseException tooLarge(long maxSize) {
+        return new ResponseException(413, "Request body exceeds " + maxSize + " bytes");
+    }
+
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long maxSize;
+        private long read;
+
+        LimitedInputStream(InputStream in, long maxSize) {
+            super(in);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0)
+                count(1);
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0)
+                count(n);
+
+            return n;
+        }
+
+        private void count(int n) {
+            read += n;
+            if (read > maxSize)
+                throw tooLarge(maxSize);
+        }
+    }
+
+    /**
+     * Reads the elements of a top-level JSON array on demand. Malformed input surfaces as
+     * {@link JsonSyntaxException} from {@link #hasNext()} or {@link #next()}.
+     */
+    private static final class ElementIterator<T> implements Iterator<T>, Closeable {
+        private final JsonReader reader;
+        private final TypeAdapter<T> adapter;
+        private final long maxElements;
+        private long count;
+        private boolean started;
+        private boolean finished;
+
+        ElementIterator(JsonReader reader, TypeAdapter<T> adapter, long maxElements) {
+            this.reader = reader;
+            this.adapter = adapter;
+            this.maxElements = maxElements;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (finished)
+                return false;
+
+            try {
+                if (!started) {
+                    reader.beginArray();
+                    started = true;
+                }
+
+                if (reader.peek() != JsonToken.END_ARRAY)
+                    return true;
+
+                reader.endArray();
+                finished = true;
+                return false;
+            } catch (IOException | IllegalStateException e) {
+                throw new JsonSyntaxException(e);
+            }
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            if (++count > maxElements)
+                throw new ResponseException(413, "Request body exceeds " + maxElements + " elements");
+
+            try {
+                return adapter.read(reader);
+            } catch (IOException e) {
+                throw new JsonSyntaxException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
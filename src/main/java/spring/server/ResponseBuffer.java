@@ -0,0 +1,177 @@
+package spring.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Writer encoding straight to UTF-8 bytes in a per-thread array, so a response is serialized
+ * without an intermediate {@link String}, {@link java.io.PrintWriter} or charset encoder and sent
+ * with a single {@link OutputStream#write(byte[], int, int)}.
+ * <p>
+ * Each thread keeps at most {@value #MAX_RETAINED_CAPACITY} bytes between requests. A body larger
+ * than that either grows the array for the duration of the request or, when a spill stream is
+ * given, is written out in chunks of that size.
+ */
+final class ResponseBuffer extends Writer {
+    private static final int INITIAL_CAPACITY = 4096;
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final int CHUNK_CHARS = 1024;
+    private static final ThreadLocal<ResponseBuffer> BUFFERS = ThreadLocal.withInitial(ResponseBuffer::new);
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int count;
+    private OutputStream spill;
+    private boolean spilled;
+    private char highSurrogate;
+    private boolean inUse;
+
+    private ResponseBuffer() {
+    }
+
+    /**
+     * Buffer of the current thread, or a new one while that is in use.
+     *
+     * @param spill stream to write full chunks to, or {@code null} to keep the whole body
+     */
+    static ResponseBuffer acquire(OutputStream spill) {
+        ResponseBuffer buffer = BUFFERS.get();
+        if (buffer.inUse)
+            buffer = new ResponseBuffer();
+
+        buffer.inUse = true;
+        buffer.spill = spill;
+        return buffer;
+    }
+
+    void release() {
+        count = 0;
+        spill = null;
+        spilled = false;
+        highSurrogate = 0;
+        inUse = false;
+        if (bytes.length > MAX_RETAINED_CAPACITY)
+            bytes = new byte[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Whether part of the body was already written to the spill stream.
+     */
+    boolean isSpilled() {
+        return spilled;
+    }
+
+    int size() {
+        return count;
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, count);
+        count = 0;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, count);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        ensureCapacity(4);
+        encode((char) c);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+        int end = offset + length;
+        while (offset < end) {
+            int chunk = Math.min(CHUNK_CHARS, end - offset);
+            ensureCapacity(chunk * 3 + 1);
+            for (int i = offset; i < offset + chunk; i++) {
+                encode(chars[i]);
+            }
+
+            offset += chunk;
+        }
+    }
+
+    @Override
+    public void write(String string, int offset, int length) throws IOException {
+        int end = offset + length;
+        while (offset < end) {
+            int chunk = Math.min(CHUNK_CHARS, end - offset);
+            ensureCapacity(chunk * 3 + 1);
+            for (int i = offset; i < offset + chunk; i++) {
+                encode(string.charAt(i));
+            }
+
+            offset += chunk;
+        }
+    }
+
+    @Override
+    public Writer append(CharSequence sequence) throws IOException {
+        String string = String.valueOf(sequence);
+        write(string, 0, string.length());
+        return this;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Unpaired surrogates become {@code '?'}, as with the JDK's UTF-8 encoder.
+     */
+    private void encode(char c) {
+        byte[] b = bytes;
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                b[count++] = (byte) (0xf0 | codePoint >> 18);
+                b[count++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                b[count++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                b[count++] = (byte) (0x80 | codePoint & 0x3f);
+                return;
+            }
+
+            b[count++] = '?';
+        }
+
+        if (c < 0x80) {
+            b[count++] = (byte) c;
+        } else if (c < 0x800) {
+            b[count++] = (byte) (0xc0 | c >> 6);
+            b[count++] = (byte) (0x80 | c & 0x3f);
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            b[count++] = '?';
+        } else {
+            b[count++] = (byte) (0xe0 | c >> 12);
+            b[count++] = (byte) (0x80 | c >> 6 & 0x3f);
+            b[count++] = (byte) (0x80 | c & 0x3f);
+        }
+    }
+
+    private void ensureCapacity(int needed) throws IOException {
+        if (count + needed <= bytes.length)
+            return;
+
+        if (spill != null && count > 0 && count >= MAX_RETAINED_CAPACITY - needed) {
+            spill.write(bytes, 0, count);
+            spilled = true;
+            count = 0;
+            if (needed <= bytes.length)
+                return;
+        }
+
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, count + needed));
+    }
+}
@@ -0,0 +1,120 @@
+package spring.server;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonNull;
+import com.google.gson.stream.JsonWriter;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import spring.cache.CachedResponse;
+import spring.http.HttpStatus;
+import spring.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Writes handler results and error bodies as JSON. Errors are written directly instead of through
+ * {@code sendError}, which would render the container's error page.
+ */
+public class ResponseWriter {
+    private static final String CONTENT_TYPE = "application/json;charset=UTF-8";
+
+    private final Gson gson;
+
+    public ResponseWriter() {
+        this(new GsonBuilder().setPrettyPrinting().create());
+    }
+
+    public ResponseWriter(Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * Writes {@code result}, taking status and body from it when it is a {@link ResponseEntity}.
+     */
+    public void writeResult(HttpServletResponse resp, Object result) throws IOException {
+        if (result instanceof ResponseEntity<?> entity) {
+            resp.setStatus(entity.getStatusCodeValue());
+            result = entity.getBody();
+        }
+
+        write(resp, result);
+    }
+
+    /**
+     * Serializes {@code result} the way {@link #writeResult} writes it.
+     */
+    public CachedResponse serialize(Object result) {
+        int status = HttpServletResponse.SC_OK;
+        if (result instanceof ResponseEntity<?> entity) {
+            status = entity.getStatusCodeValue();
+            result = entity.getBody();
+        }
+
+        ResponseBuffer buffer = ResponseBuffer.acquire(null);
+        try {
+            encode(buffer, result);
+            return new CachedResponse(status, CONTENT_TYPE, buffer.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    public void write(HttpServletResponse resp, CachedResponse response) throws IOException {
+        resp.setStatus(response.status());
+        resp.setContentType(response.contentType());
+        resp.setContentLength(response.body().length);
+        resp.getOutputStream().write(response.body());
+    }
+
+    public void writeError(HttpServletResponse resp, int status, String message) throws IOException {
+        if (resp.isCommitted())
+            return;
+
+        resp.resetBuffer();
+        resp.setStatus(status);
+        HttpStatus httpStatus = HttpStatus.resolve(status);
+        write(resp, new ErrorBody(System.currentTimeMillis(), status, httpStatus != null ? httpStatus.getReasonPhrase() : null, message));
+    }
+
+    /**
+     * Encodes {@code body} into the thread's {@link ResponseBuffer} and writes it with one call,
+     * unless a handler already took the response's writer.
+     */
+    private void write(HttpServletResponse resp, Object body) throws IOException {
+        resp.setContentType(CONTENT_TYPE);
+        ServletOutputStream out;
+        try {
+            out = resp.getOutputStream();
+        } catch (IllegalStateException e) {
+            gson.toJson(body, resp.getWriter());
+            return;
+        }
+
+        ResponseBuffer buffer = ResponseBuffer.acquire(out);
+        try {
+            encode(buffer, body);
+            if (!buffer.isSpilled())
+                resp.setContentLength(buffer.size());
+
+            buffer.writeTo(out);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private void encode(Writer writer, Object body) throws IOException {
+        JsonWriter jsonWriter = gson.newJsonWriter(writer);
+        if (body == null)
+            gson.toJson(JsonNull.INSTANCE, jsonWriter);
+        else
+            gson.toJson(body, body.getClass(), jsonWriter);
+    }
+
+    private record ErrorBody(long timestamp, int status, String error, String message) {
+    }
+}
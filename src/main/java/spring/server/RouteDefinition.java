@@ -0,0 +1,36 @@
+package spring.server;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * A registered route: the controller method it dispatches to, the full mapping key
+ * (request method followed by path) and, for paths with variables, the derived regex.
+ */
+public record RouteDefinition(String controller, String method, String[] parameterTypes, String mapping, String pattern) {
+
+    static RouteDefinition of(Method method, String mapping, String pattern) {
+        String[] parameterTypes = Arrays.stream(method.getParameterTypes())
+                .map(Class::getTypeName)
+                .toArray(String[]::new);
+        return new RouteDefinition(method.getDeclaringClass().getName(), method.getName(), parameterTypes, mapping, pattern);
+    }
+
+    Method resolveMethod(Class<?> c) throws NoSuchMethodException {
+        for (Method candidate : c.getDeclaredMethods()) {
+            if (!candidate.getName().equals(method) || candidate.getParameterCount() != parameterTypes.length)
+                continue;
+
+            Class<?>[] candidateTypes = candidate.getParameterTypes();
+            boolean matches = true;
+            for (int i = 0; i < candidateTypes.length && matches; i++) {
+                matches = candidateTypes[i].getTypeName().equals(parameterTypes[i]);
+            }
+
+            if (matches)
+                return candidate;
+        }
+
+        throw new NoSuchMethodException(controller + "." + method + Arrays.toString(parameterTypes));
+    }
+}
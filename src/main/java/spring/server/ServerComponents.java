@@ -0,0 +1,95 @@
+package spring.server;
+
+import jakarta.servlet.Filter;
+import spring.accesslog.AccessLog;
+import spring.buffer.BufferPool;
+import spring.dic.ApplicationContext;
+import spring.filter.ConcurrencyLimitFilter;
+import spring.filter.ConcurrencyLimiter;
+import spring.filter.ExceptionFilter;
+import spring.filter.RateLimitFilter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Access log and filters every {@link WebServer} puts in front of the {@link DispatcherServlet},
+ * so requests pass the same pipeline whichever engine accepted them.
+ */
+public final class ServerComponents {
+    private ServerComponents() {
+    }
+
+    /**
+     * Access log configured by {@code spring.accesslog.*}, or {@code null} when disabled.
+     */
+    public static AccessLog createAccessLog(ApplicationContext applicationContext) throws IOException {
+        if (!Boolean.parseBoolean(applicationContext.getProperty("spring.accesslog.enabled", "false")))
+            return null;
+
+        Path file = Path.of(applicationContext.getProperty("spring.accesslog.file", "access.log"));
+        int bufferSize = Integer.parseInt(applicationContext.getProperty("spring.accesslog.buffer-size", "8192"));
+        long maxFileSize = Long.parseLong(applicationContext.getProperty("spring.accesslog.max-file-size", String.valueOf(10L << 20)));
+        int maxFiles = Integer.parseInt(applicationContext.getProperty("spring.accesslog.max-files", "5"));
+        AccessLog accessLog = new AccessLog(file, bufferSize, maxFileSize, maxFiles);
+        applicationContext.getMeterRegistry().register(writer -> writer
+                .family("access_log_dropped_total", "counter", "Access log entries dropped because the buffer was full.")
+                .sample("access_log_dropped_total", accessLog.getDropped()));
+        return accessLog;
+    }
+
+    /**
+     * Pool of response buffers configured by {@code spring.buffer-pool.*}. Leak detection logs
+     * buffers that were never released and is meant for tests.
+     */
+    public static BufferPool createBufferPool(ApplicationContext applicationContext) {
+        long maxRetainedBytes = Long.parseLong(applicationContext.getProperty("spring.buffer-pool.max-retained-bytes", String.valueOf(16L << 20)));
+        boolean leakDetection = Boolean.parseBoolean(applicationContext.getProperty("spring.buffer-pool.leak-detection", "false"));
+        BufferPool bufferPool = new BufferPool(maxRetainedBytes, leakDetection);
+        applicationContext.getMeterRegistry().register(writer -> writer
+                .family("buffer_pool_in_use", "gauge", "Pooled response buffers currently borrowed.")
+                .sample("buffer_pool_in_use", bufferPool.getInUse())
+                .family("buffer_pool_allocated_total", "counter", "Direct buffers allocated because the pool had none.")
+                .sample("buffer_pool_allocated_total", bufferPool.getAllocated())
+                .family("buffer_pool_leaks_total", "counter", "Borrowed buffers garbage collected without being released.")
+                .sample("buffer_pool_leaks_total", bufferPool.getLeaks()));
+        return bufferPool;
+    }
+
+    /**
+     * Enabled filters in the order they apply to every request.
+     *
+     * @param maxThreads request threads of the engine, the default upper bound of the concurrency limit
+     */
+    public static List<Filter> createFilters(ApplicationContext applicationContext, int maxThreads) {
+        List<Filter> filters = new ArrayList<>();
+        RateLimitFilter rateLimitFilter = new RateLimitFilter(applicationContext);
+        if (rateLimitFilter.isEnabled())
+            filters.add(rateLimitFilter);
+
+        ConcurrencyLimitFilter concurrencyLimitFilter = new ConcurrencyLimitFilter(applicationContext, maxThreads);
+        if (concurrencyLimitFilter.isEnabled()) {
+            ConcurrencyLimiter limiter = concurrencyLimitFilter.getLimiter();
+            applicationContext.getMeterRegistry().register(writer -> writer
+                    .family("http_concurrency_limit", "gauge", "Current adaptive concurrency limit.")
+                    .sample("http_concurrency_limit", limiter.getLimit())
+                    .family("http_concurrency_in_flight", "gauge", "Requests currently admitted by the concurrency limiter.")
+                    .sample("http_concurrency_in_flight", limiter.getInFlight())
+                    .family("http_concurrency_rejected_total", "counter", "Requests rejected by the concurrency limiter.")
+                    .sample("http_concurrency_rejected_total", concurrencyLimitFilter.getRejected()));
+            filters.add(concurrencyLimitFilter);
+        }
+
+        filters.add(new ExceptionFilter());
+        return filters;
+    }
+
+    /**
+     * Path of the metrics endpoint, or {@code null} when it isn't exposed.
+     */
+    public static String getMetricsEndpoint(ApplicationContext applicationContext) {
+        return applicationContext.getProperty("spring.metrics.endpoint", null);
+    }
+}
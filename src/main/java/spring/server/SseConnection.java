@@ -0,0 +1,140 @@
+package spring.server;
+
+import com.google.gson.Gson;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes the events of one {@link SseEmitter} to its async response with non-blocking IO. Writes
+ * stop as soon as the socket can't take more and resume from {@link #onWritePossible()}, so a slow
+ * client holds neither a container thread nor more than its emitter's buffer.
+ */
+final class SseConnection implements WriteListener, AsyncListener {
+    private static final Logger LOGGER = Logger.getLogger(SseConnection.class.getName());
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final AsyncContext asyncContext;
+    private final ServletOutputStream out;
+    private final SseEmitter emitter;
+    private final Gson gson;
+    private final Consumer<SseConnection> onClose;
+    private volatile boolean heartbeatDue;
+    private boolean unflushed;
+    private boolean closed;
+
+    SseConnection(AsyncContext asyncContext, SseEmitter emitter, Gson gson, Consumer<SseConnection> onClose) throws IOException {
+        this.asyncContext = asyncContext;
+        this.out = asyncContext.getResponse().getOutputStream();
+        this.emitter = emitter;
+        this.gson = gson;
+        this.onClose = onClose;
+    }
+
+    void open() {
+        asyncContext.addListener(this);
+        out.setWriteListener(this);
+        emitter.attach(this::drain);
+    }
+
+    /**
+     * Writes a comment line on the next drain unless an event is pending; failing to write it is
+     * how a silently disconnected client is noticed.
+     */
+    void heartbeat() {
+        heartbeatDue = true;
+        drain();
+    }
+
+    synchronized void drain() {
+        if (closed)
+            return;
+
+        int written = 0;
+        try {
+            while (out.isReady()) {
+                SseEmitter.Event event = emitter.poll();
+                if (event != null) {
+                    out.write(event.frame(gson));
+                    unflushed = true;
+                    written++;
+                } else if (heartbeatDue) {
+                    out.write(HEARTBEAT);
+                    unflushed = true;
+                    heartbeatDue = false;
+                } else if (unflushed) {
+                    out.flush();
+                    unflushed = false;
+                } else {
+                    if (emitter.isCompleted())
+                        close();
+
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Event stream client disconnected", e);
+            close();
+        }
+
+        if (written > 0 && !closed)
+            emitter.drained(written);
+    }
+
+    @Override
+    public void onWritePossible() {
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        LOGGER.log(Level.FINE, "Event stream write failed", t);
+        closeQuietly();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        closeQuietly();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        closeQuietly();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        closeQuietly();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+
+    private synchronized void closeQuietly() {
+        close();
+    }
+
+    private void close() {
+        if (closed)
+            return;
+
+        closed = true;
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException e) {
+            // already completed by the container
+        }
+
+        onClose.accept(this);
+        emitter.closed();
+    }
+}
@@ -0,0 +1,265 @@
+package spring.server;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Handler result streamed to the client as {@code text/event-stream}. Events sent before the
+ * connection is writable wait in a bounded per-connection buffer; a client too slow to keep it
+ * from filling up is disconnected once the buffered events are written, so it reconnects and
+ * re-reads the state instead of silently missing events.
+ */
+public class SseEmitter {
+    private static final Logger LOGGER = Logger.getLogger(SseEmitter.class.getName());
+    public static final int DEFAULT_BUFFER_SIZE = 256;
+
+    private final long timeoutMillis;
+    private final int bufferSize;
+    private final BlockingQueue<Event> buffer;
+    private final List<Runnable> completionCallbacks = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile boolean completed;
+    private volatile Runnable drain;
+
+    public SseEmitter() {
+        this(0, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param timeoutMillis time after which the stream is closed, {@code 0} to keep it open until
+     *                      it is completed or the client disconnects
+     */
+    public SseEmitter(long timeoutMillis, int bufferSize) {
+        if (bufferSize <= 0)
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+
+        this.timeoutMillis = timeoutMillis;
+        this.bufferSize = bufferSize;
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    /**
+     * Streams the items of {@code publisher}, requesting only as many as the buffer has room for.
+     */
+    public static SseEmitter fromPublisher(Flow.Publisher<?> publisher) {
+        return new PublisherEmitter(publisher, 0, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Sends an unnamed event. {@link String} data is sent as is, anything else as JSON.
+     *
+     * @return {@code false} when the stream is closed or the event didn't fit into the buffer
+     */
+    public boolean send(Object data) {
+        return send(null, data);
+    }
+
+    public boolean send(String name, Object data) {
+        return send(new Event(name, data));
+    }
+
+    /**
+     * Sends an event that may go to other emitters as well; it is encoded only once for all of them.
+     */
+    public boolean send(Event event) {
+        if (completed)
+            return false;
+
+        if (!buffer.offer(event)) {
+            LOGGER.fine(() -> "Event buffer full, closing stream of slow client");
+            complete();
+            return false;
+        }
+
+        signal();
+        return true;
+    }
+
+    /**
+     * Closes the stream after the buffered events are written.
+     */
+    public void complete() {
+        completed = true;
+        signal();
+    }
+
+    public boolean isOpen() {
+        return !completed;
+    }
+
+    /**
+     * Runs {@code callback} once the stream is closed, whether completed, timed out or disconnected.
+     */
+    public void onCompletion(Runnable callback) {
+        completionCallbacks.add(callback);
+        if (closed.get() && completionCallbacks.remove(callback))
+            callback.run();
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    int getBufferSize() {
+        return bufferSize;
+    }
+
+    boolean isCompleted() {
+        return completed;
+    }
+
+    void attach(Runnable drain) {
+        this.drain = drain;
+        drain.run();
+    }
+
+    Event poll() {
+        return buffer.poll();
+    }
+
+    /**
+     * Called by the connection after {@code count} events were written.
+     */
+    void drained(int count) {
+    }
+
+    void closed() {
+        completed = true;
+        if (!closed.compareAndSet(false, true))
+            return;
+
+        buffer.clear();
+        for (Runnable callback : completionCallbacks) {
+            if (completionCallbacks.remove(callback))
+                callback.run();
+        }
+    }
+
+    private void signal() {
+        Runnable current = drain;
+        if (current != null)
+            current.run();
+    }
+
+    /**
+     * A named or unnamed event. {@link String} data is sent as is, anything else as JSON.
+     */
+    public static final class Event {
+        private final String name;
+        private final Object data;
+        private volatile byte[] frame;
+
+        public Event(String name, Object data) {
+            this.name = name;
+            this.data = data;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public Object data() {
+            return data;
+        }
+
+        /**
+         * The {@code text/event-stream} frame of the event, built by the first connection writing it.
+         * JSON is written compactly, so each event is one {@code data} line.
+         */
+        byte[] frame(Gson gson) {
+            byte[] encoded = frame;
+            if (encoded == null)
+                frame = encoded = encode(gson);
+
+            return encoded;
+        }
+
+        private byte[] encode(Gson gson) {
+            StringBuilder frame = new StringBuilder();
+            if (name != null)
+                frame.append("event: ").append(name).append('\n');
+
+            String text = data instanceof String string ? string : toJson(gson, data);
+            for (String line : text.split("\r\n|\r|\n", -1)) {
+                frame.append("data: ").append(line).append('\n');
+            }
+
+            return frame.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static String toJson(Gson gson, Object data) {
+            if (data == null)
+                return "null";
+
+            StringWriter json = new StringWriter();
+            gson.toJson(data, data.getClass(), new JsonWriter(json));
+            return json.toString();
+        }
+    }
+
+    private static final class PublisherEmitter extends SseEmitter implements Flow.Subscriber<Object> {
+        private final Flow.Publisher<?> publisher;
+        private volatile Flow.Subscription subscription;
+
+        PublisherEmitter(Flow.Publisher<?> publisher, long timeoutMillis, int bufferSize) {
+            super(timeoutMillis, bufferSize);
+            this.publisher = publisher;
+            onCompletion(() -> {
+                Flow.Subscription current = subscription;
+                if (current != null)
+                    current.cancel();
+            });
+        }
+
+        @Override
+        void attach(Runnable drain) {
+            super.attach(drain);
+            publisher.subscribe(this);
+        }
+
+        @Override
+        void drained(int count) {
+            Flow.Subscription current = subscription;
+            if (current != null)
+                current.request(count);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (isCompleted()) {
+                subscription.cancel();
+                return;
+            }
+
+            subscription.request(getBufferSize());
+        }
+
+        @Override
+        public void onNext(Object item) {
+            send(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            LOGGER.log(Level.WARNING, "Event stream publisher failed", throwable);
+            complete();
+        }
+
+        @Override
+        public void onComplete() {
+            complete();
+        }
+    }
+}
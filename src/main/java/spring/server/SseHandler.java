@@ -0,0 +1,81 @@
+package spring.server;
+
+import com.google.gson.Gson;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Switches requests whose handler returned an {@link SseEmitter} or a {@link Flow.Publisher} to
+ * async mode and keeps their connections alive with periodic heartbeats.
+ */
+final class SseHandler {
+    private final Gson gson;
+    private final Set<SseConnection> connections = ConcurrentHashMap.newKeySet();
+    private final long heartbeatIntervalMillis;
+    private ScheduledExecutorService heartbeats;
+
+    /**
+     * @param gson writes event data that isn't a {@link String}
+     */
+    SseHandler(Gson gson, long heartbeatIntervalMillis) {
+        this.gson = gson;
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+    }
+
+    SseHandler withGson(Gson gson) {
+        return new SseHandler(gson, heartbeatIntervalMillis);
+    }
+
+    static boolean isStream(Object result) {
+        return result instanceof SseEmitter || result instanceof Flow.Publisher<?>;
+    }
+
+    void start(HttpServletRequest req, HttpServletResponse resp, Object result) throws IOException {
+        SseEmitter emitter = result instanceof Flow.Publisher<?> publisher ? SseEmitter.fromPublisher(publisher) : (SseEmitter) result;
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType("text/event-stream");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setHeader("Cache-Control", "no-cache");
+        resp.setHeader("X-Accel-Buffering", "no");
+        resp.flushBuffer();
+
+        AsyncContext asyncContext = req.startAsync(req, resp);
+        asyncContext.setTimeout(emitter.getTimeoutMillis());
+        SseConnection connection = new SseConnection(asyncContext, emitter, gson, connections::remove);
+        connections.add(connection);
+        startHeartbeats();
+        connection.open();
+    }
+
+    int getOpenConnections() {
+        return connections.size();
+    }
+
+    private synchronized void startHeartbeats() {
+        if (heartbeats != null || heartbeatIntervalMillis <= 0)
+            return;
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "sse-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatIntervalMillis, heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
+        heartbeats = executor;
+    }
+
+    private void sendHeartbeats() {
+        for (SseConnection connection : connections) {
+            connection.heartbeat();
+        }
+    }
+}
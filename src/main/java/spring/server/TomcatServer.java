@@ -1,45 +1,156 @@
 package spring.server;
 
+import jakarta.servlet.Filter;
 import org.apache.catalina.Context;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.connector.Connector;
 import org.apache.catalina.startup.Tomcat;
+import org.apache.coyote.http2.Http2Protocol;
 import org.apache.tomcat.util.descriptor.web.FilterDef;
 import org.apache.tomcat.util.descriptor.web.FilterMap;
+import org.apache.tomcat.util.net.SSLHostConfig;
+import org.apache.tomcat.util.net.SSLHostConfigCertificate;
+import spring.accesslog.AccessLog;
 import spring.dic.ApplicationContext;
-import spring.filter.ExceptionFilter;
+import spring.metrics.MetricsServlet;
 
-public class TomcatServer {
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class TomcatServer implements WebServer {
     private static final String DEFAULT_CONTEXT_PATH = "/";
     private static final String MAX_THREADS = "200";
     private static final int DEFAULT_PORT = 8080;
 
     private String contextPath = DEFAULT_CONTEXT_PATH; // todo check from config and override if present
-    private int serverPort = DEFAULT_PORT; // todo check from config and override if present
+    private final int serverPort;
     private String maxThreads = MAX_THREADS; // todo check from config and override if present
     private final ApplicationContext applicationContext;
+    private Tomcat tomcat;
 
     public TomcatServer(ApplicationContext applicationContext) {
         this.applicationContext = applicationContext;
+        serverPort = Integer.parseInt(applicationContext.getProperty("spring.server.port", String.valueOf(DEFAULT_PORT)));
     }
 
     public void startServer() throws Exception {
-        Tomcat tomcat = new Tomcat();
+        start();
+        await();
+    }
+
+    @Override
+    public void start() throws Exception {
+        tomcat = new Tomcat();
         tomcat.setPort(serverPort);
-        tomcat.getConnector().setProperty("maxThreads", maxThreads);
+        Connector connector = tomcat.getConnector();
+        connector.setProperty("maxThreads", maxThreads);
+        configureSsl(connector);
+        addHttp2(connector);
         Context context = tomcat.addContext(contextPath, null);
+        addAccessLog(context);
         addDispatcherServlet(tomcat, context);
-        addExceptionFilter(context);
+        addMetricsServlet(tomcat, context);
+        addFilters(context);
 
         tomcat.start();
+    }
+
+    @Override
+    public void await() {
         tomcat.getServer().await();
     }
 
-    private static void addExceptionFilter(Context context) {
-        ExceptionFilter exceptionFilter = new ExceptionFilter();
+    @Override
+    public void stop() throws Exception {
+        tomcat.stop();
+        tomcat.destroy();
+    }
+
+    @Override
+    public int getPort() {
+        return tomcat.getConnector().getLocalPort();
+    }
+
+    /**
+     * Serves TLS on the port when {@code spring.server.ssl.enabled} is set, with the key pair of a
+     * keystore such as one made by
+     * {@code keytool -genkeypair -alias server -keyalg EC -keystore server.p12 -storetype PKCS12}.
+     */
+    private void configureSsl(Connector connector) {
+        if (!Boolean.parseBoolean(applicationContext.getProperty("spring.server.ssl.enabled", "false")))
+            return;
+
+        String keyStore = applicationContext.getProperty("spring.server.ssl.key-store", null);
+        if (keyStore == null)
+            throw new IllegalStateException("spring.server.ssl.key-store must be set when spring.server.ssl.enabled is true");
+
+        String keyStorePassword = applicationContext.getProperty("spring.server.ssl.key-store-password", null);
+        if (keyStorePassword == null)
+            throw new IllegalStateException("spring.server.ssl.key-store-password must be set when spring.server.ssl.enabled is true");
+
+        SSLHostConfig sslHostConfig = new SSLHostConfig();
+        sslHostConfig.setProtocols(applicationContext.getProperty("spring.server.ssl.protocols", "TLSv1.2+TLSv1.3"));
+        SSLHostConfigCertificate certificate = new SSLHostConfigCertificate(sslHostConfig, SSLHostConfigCertificate.Type.UNDEFINED);
+        // Tomcat resolves relative paths against its base directory rather than the working directory
+        certificate.setCertificateKeystoreFile(Path.of(keyStore).toAbsolutePath().toString());
+        certificate.setCertificateKeystorePassword(keyStorePassword);
+        certificate.setCertificateKeystoreType(applicationContext.getProperty("spring.server.ssl.key-store-type", "PKCS12"));
+        String keyAlias = applicationContext.getProperty("spring.server.ssl.key-alias", null);
+        if (keyAlias != null)
+            certificate.setCertificateKeyAlias(keyAlias);
+
+        sslHostConfig.addCertificate(certificate);
+        connector.addSslHostConfig(sslHostConfig);
+        connector.setProperty("SSLEnabled", "true");
+        connector.setScheme("https");
+        connector.setSecure(true);
+    }
+
+    /**
+     * Adds HTTP/2 when {@code spring.server.http2.enabled} is set: negotiated through ALPN on a TLS
+     * connector, otherwise as h2c through an {@code Upgrade} header or with prior knowledge.
+     * HTTP/1.1 clients keep working either way.
+     */
+    private void addHttp2(Connector connector) {
+        if (!Boolean.parseBoolean(applicationContext.getProperty("spring.server.http2.enabled", "false")))
+            return;
+
+        Http2Protocol http2 = new Http2Protocol();
+        http2.setMaxConcurrentStreams(Long.parseLong(applicationContext.getProperty("spring.server.http2.max-concurrent-streams", "100")));
+        http2.setInitialWindowSize(Integer.parseInt(applicationContext.getProperty("spring.server.http2.initial-window-size", "65535")));
+        connector.addUpgradeProtocol(http2);
+    }
+
+    private void addAccessLog(Context context) throws IOException {
+        AccessLog accessLog = ServerComponents.createAccessLog(applicationContext);
+        if (accessLog != null)
+            context.getPipeline().addValve(new AccessLogValve(accessLog));
+    }
+
+    private void addMetricsServlet(Tomcat tomcat, Context context) {
+        String endpoint = ServerComponents.getMetricsEndpoint(applicationContext);
+        if (endpoint == null)
+            return;
+
+        MetricsServlet metricsServlet = new MetricsServlet(applicationContext.getMeterRegistry());
+        String servletName = metricsServlet.getClass().getName();
+        tomcat.addServlet(contextPath, servletName, metricsServlet);
+        context.addServletMappingDecoded(endpoint, servletName);
+    }
+
+    private void addFilters(Context context) {
+        for (Filter filter : ServerComponents.createFilters(applicationContext, Integer.parseInt(maxThreads))) {
+            addFilter(context, filter);
+        }
+    }
+
+    private static void addFilter(Context context, Filter filter) {
         FilterDef filterDef = new FilterDef();
-        filterDef.setFilter(exceptionFilter);
-        filterDef.setFilterName(exceptionFilter.getClass().getName());
+        filterDef.setFilter(filter);
+        filterDef.setFilterName(filter.getClass().getName());
+        filterDef.setAsyncSupported("true");
         FilterMap filterMap = new FilterMap();
-        filterMap.setFilterName(exceptionFilter.getClass().getName());
+        filterMap.setFilterName(filter.getClass().getName());
         filterMap.addURLPattern("/*");
         context.addFilterDef(filterDef);
         context.addFilterMap(filterMap);
@@ -48,7 +159,8 @@ public class TomcatServer {
     private void addDispatcherServlet(Tomcat tomcat, Context context) {
         DispatcherServlet dispatcherServlet = applicationContext.getInstance(DispatcherServlet.class);
         String servletName = dispatcherServlet.getClass().getName();
-        tomcat.addServlet(contextPath, servletName, dispatcherServlet);
+        Wrapper wrapper = tomcat.addServlet(contextPath, servletName, dispatcherServlet);
+        wrapper.setAsyncSupported(true);
         context.addServletMappingDecoded("/*", servletName);
     }
 }
@@ -0,0 +1,6 @@
+package spring.server;
+
+public interface WebMvcConfigurer {
+    default void addInterceptors(InterceptorRegistry registry) {
+    }
+}
@@ -0,0 +1,21 @@
+package spring.server;
+
+/**
+ * HTTP engine serving the {@link DispatcherServlet}. {@code spring.server.engine} selects the
+ * implementation: {@code tomcat} (default) or {@code nio}.
+ */
+public interface WebServer {
+    void start() throws Exception;
+
+    /**
+     * Blocks until the server is stopped.
+     */
+    void await();
+
+    void stop() throws Exception;
+
+    /**
+     * Port the server listens on, which differs from the configured one when that is {@code 0}.
+     */
+    int getPort();
+}
@@ -0,0 +1,105 @@
+package spring.server.nio;
+
+import spring.buffer.BufferPool;
+import spring.buffer.PooledBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bytes collected in pooled direct buffers, a new one borrowed whenever the last is full, so
+ * content is never copied to grow it and goes to the socket as is.
+ */
+final class BufferChain {
+    private final BufferPool pool;
+    private final List<PooledBuffer> buffers = new ArrayList<>(4);
+    private PooledBuffer last;
+    private int size;
+
+    BufferChain(BufferPool pool) {
+        this.pool = pool;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        int capacity = 0;
+        for (PooledBuffer buffer : buffers) {
+            capacity += buffer.buffer().capacity();
+        }
+
+        return capacity;
+    }
+
+    void write(int b) {
+        ensureRemaining(1);
+        last.buffer().put((byte) b);
+        size++;
+    }
+
+    void write(byte[] b, int off, int len) {
+        while (len > 0) {
+            int n = Math.min(ensureRemaining(len), len);
+            last.buffer().put(b, off, n);
+            off += n;
+            len -= n;
+            size += n;
+        }
+    }
+
+    /**
+     * Writes {@code chars} as ISO-8859-1, the encoding of the status line and headers.
+     */
+    void writeLatin1(CharSequence chars) {
+        int length = chars.length();
+        int i = 0;
+        while (i < length) {
+            int end = i + Math.min(ensureRemaining(length - i), length - i);
+            for (; i < end; i++) {
+                last.buffer().put((byte) chars.charAt(i));
+            }
+        }
+
+        size += length;
+    }
+
+    /**
+     * Hands the buffers, ready for writing, to the caller, who must release them; the chain is
+     * empty afterwards.
+     */
+    PooledBuffer[] take() {
+        PooledBuffer[] taken = buffers.toArray(new PooledBuffer[0]);
+        for (PooledBuffer buffer : taken) {
+            buffer.buffer().flip();
+        }
+
+        buffers.clear();
+        last = null;
+        size = 0;
+        return taken;
+    }
+
+    void release() {
+        for (PooledBuffer buffer : buffers) {
+            buffer.release();
+        }
+
+        buffers.clear();
+        last = null;
+        size = 0;
+    }
+
+    /**
+     * Room in the last buffer, borrowing a buffer sized for {@code wanted} bytes if it is full.
+     */
+    private int ensureRemaining(int wanted) {
+        if (last == null || !last.buffer().hasRemaining()) {
+            last = pool.acquire(wanted);
+            buffers.add(last);
+        }
+
+        return last.buffer().remaining();
+    }
+}
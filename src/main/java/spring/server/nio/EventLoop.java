@@ -0,0 +1,128 @@
+package spring.server.nio;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Selector thread owning a set of connections. All IO and state changes of those connections run
+ * on this thread; other threads hand work over with {@link #execute(Runnable)}.
+ */
+final class EventLoop implements Runnable {
+    private static final Logger LOGGER = Logger.getLogger(EventLoop.class.getName());
+    private static final long SELECT_TIMEOUT_MILLIS = 1000;
+
+    /**
+     * Attachment of the keys registered with a loop's selector.
+     */
+    interface Handler {
+        void ready(SelectionKey key);
+    }
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Set<HttpConnection> connections = new HashSet<>();
+    private final long idleTimeoutNanos;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private long lastIdleCheck = System.nanoTime();
+
+    EventLoop(String name, long idleTimeoutNanos) throws IOException {
+        this.selector = Selector.open();
+        this.idleTimeoutNanos = idleTimeoutNanos;
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    Selector selector() {
+        return selector;
+    }
+
+    boolean inLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    void execute(Runnable task) {
+        tasks.add(task);
+        if (!inLoop())
+            selector.wakeup();
+    }
+
+    void add(HttpConnection connection) {
+        connections.add(connection);
+    }
+
+    void remove(HttpConnection connection) {
+        connections.remove(connection);
+    }
+
+    void shutdown() throws InterruptedException {
+        running = false;
+        selector.wakeup();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select(SELECT_TIMEOUT_MILLIS);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid())
+                        ((Handler) key.attachment()).ready(key);
+                }
+
+                runTasks();
+                closeIdleConnections();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Event loop iteration failed", e);
+            }
+        }
+
+        runTasks();
+        for (HttpConnection connection : new ArrayList<>(connections)) {
+            connection.close();
+        }
+
+        try {
+            selector.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Closing selector failed", e);
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void closeIdleConnections() {
+        long now = System.nanoTime();
+        if (now - lastIdleCheck < TimeUnit.MILLISECONDS.toNanos(SELECT_TIMEOUT_MILLIS))
+            return;
+
+        lastIdleCheck = now;
+        for (HttpConnection connection : new ArrayList<>(connections)) {
+            if (connection.isIdleSince(now - idleTimeoutNanos))
+                connection.close();
+        }
+    }
+}
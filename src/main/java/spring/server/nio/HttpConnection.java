@@ -0,0 +1,225 @@
+package spring.server.nio;
+
+import spring.buffer.PooledBuffer;
+import spring.exception.ResponseException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * One HTTP/1.1 connection, driven by its {@link EventLoop}. Requests are served one at a time:
+ * once a request is parsed the connection stops reading until its response is written, then
+ * continues with whatever the client pipelined behind it. Responses therefore leave in request
+ * order and a client can't queue more than one request per connection on the workers.
+ * <p>
+ * Response buffers are written with gathering writes and go back to the pool as soon as they are
+ * written, or when the connection closes.
+ */
+final class HttpConnection implements EventLoop.Handler {
+    private static final Logger LOGGER = Logger.getLogger(HttpConnection.class.getName());
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private enum State {READING, PROCESSING, WRITING, CLOSED}
+
+    private final NioServer server;
+    private final EventLoop loop;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final NioServletRequest.ConnectionInfo info;
+    private final HttpRequestParser parser;
+    private final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+    private final ArrayDeque<PooledBuffer> pooled = new ArrayDeque<>();
+    private ByteBuffer[] gather = new ByteBuffer[8];
+    private State state = State.READING;
+    private boolean closeAfterWrite;
+    private int served;
+    private long lastActive = System.nanoTime();
+
+    HttpConnection(NioServer server, EventLoop loop, SocketChannel channel, String id, HttpRequestParser parser) throws IOException {
+        this.server = server;
+        this.loop = loop;
+        this.channel = channel;
+        this.parser = parser;
+        info = new NioServletRequest.ConnectionInfo(id, (InetSocketAddress) channel.getRemoteAddress(), (InetSocketAddress) channel.getLocalAddress());
+        key = channel.register(loop.selector(), SelectionKey.OP_READ, this);
+        loop.add(this);
+    }
+
+    EventLoop loop() {
+        return loop;
+    }
+
+    NioServletRequest.ConnectionInfo info() {
+        return info;
+    }
+
+    /**
+     * Whether the connection waits on the client and did nothing since {@code deadline}; requests
+     * being processed never time out.
+     */
+    boolean isIdleSince(long deadline) {
+        return state != State.PROCESSING && lastActive - deadline < 0;
+    }
+
+    @Override
+    public void ready(SelectionKey key) {
+        try {
+            if (key.isWritable())
+                flush();
+
+            if (key.isValid() && key.isReadable())
+                read();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Connection " + info.id() + " failed", e);
+            close();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Connection " + info.id() + " failed", e);
+            close();
+        }
+    }
+
+    /**
+     * Queues the response of the request being processed; called on the loop thread.
+     */
+    void complete(PooledBuffer[] response, boolean keepAlive) {
+        if (state != State.PROCESSING) {
+            for (PooledBuffer buffer : response) {
+                buffer.release();
+            }
+
+            return;
+        }
+
+        state = State.WRITING;
+        closeAfterWrite = !keepAlive;
+        try {
+            for (PooledBuffer buffer : response) {
+                out.add(buffer.buffer());
+                pooled.add(buffer);
+            }
+
+            flush();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Connection " + info.id() + " failed", e);
+            close();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Connection " + info.id() + " failed", e);
+            close();
+        }
+    }
+
+    void close() {
+        if (state == State.CLOSED)
+            return;
+
+        state = State.CLOSED;
+        out.clear();
+        while (!pooled.isEmpty()) {
+            pooled.poll().release();
+        }
+
+        key.cancel();
+        loop.remove(this);
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Closing connection " + info.id() + " failed", e);
+        }
+
+        server.connectionClosed();
+    }
+
+    private void read() throws IOException {
+        if (state != State.READING)
+            return;
+
+        int n = channel.read(in);
+        if (n < 0) {
+            close();
+            return;
+        }
+
+        lastActive = System.nanoTime();
+        process();
+    }
+
+    /**
+     * Parses buffered input and hands a complete request to the workers.
+     */
+    private void process() throws IOException {
+        ParsedRequest request;
+        in.flip();
+        try {
+            request = parser.parse(in);
+        } catch (ResponseException e) {
+            in.clear();
+            state = State.PROCESSING;
+            complete(server.renderError(e.statusCode, e.message), false);
+            return;
+        }
+
+        in.compact();
+        if (parser.takeContinueExpected()) {
+            out.add(ByteBuffer.wrap(CONTINUE));
+            flush();
+        }
+
+        if (request == null)
+            return;
+
+        state = State.PROCESSING;
+        served++;
+        updateInterest();
+        server.dispatch(this, request, served >= server.getMaxKeepAliveRequests());
+    }
+
+    private void flush() throws IOException {
+        if (!out.isEmpty()) {
+            int count = out.size();
+            if (gather.length < count)
+                gather = new ByteBuffer[Math.max(count, gather.length * 2)];
+
+            channel.write(out.toArray(gather), 0, count);
+            Arrays.fill(gather, 0, count, null);
+            while (!out.isEmpty() && !out.peek().hasRemaining()) {
+                out.poll();
+            }
+
+            while (!pooled.isEmpty() && !pooled.peek().buffer().hasRemaining()) {
+                pooled.poll().release();
+            }
+        }
+
+        lastActive = System.nanoTime();
+        if (!out.isEmpty() || state != State.WRITING) {
+            updateInterest();
+            return;
+        }
+
+        if (closeAfterWrite) {
+            close();
+            return;
+        }
+
+        state = State.READING;
+        updateInterest();
+        if (in.position() > 0)
+            process();
+    }
+
+    private void updateInterest() {
+        int ops = (state == State.READING ? SelectionKey.OP_READ : 0) | (out.isEmpty() ? 0 : SelectionKey.OP_WRITE);
+        if (key.isValid() && key.interestOps() != ops)
+            key.interestOps(ops);
+    }
+}
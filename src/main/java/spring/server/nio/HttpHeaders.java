@@ -0,0 +1,109 @@
+package spring.server.nio;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Header fields in arrival order, looked up case-insensitively. Messages carry a dozen headers at
+ * most, so a linear scan beats hashing their names.
+ */
+final class HttpHeaders {
+    private final List<String> names = new ArrayList<>();
+    private final List<String> values = new ArrayList<>();
+
+    void add(String name, String value) {
+        names.add(name);
+        values.add(value);
+    }
+
+    void set(String name, String value) {
+        remove(name);
+        add(name, value);
+    }
+
+    void remove(String name) {
+        for (int i = names.size() - 1; i >= 0; i--) {
+            if (names.get(i).equalsIgnoreCase(name)) {
+                names.remove(i);
+                values.remove(i);
+            }
+        }
+    }
+
+    void clear() {
+        names.clear();
+        values.clear();
+    }
+
+    boolean contains(String name) {
+        return get(name) != null;
+    }
+
+    /**
+     * First value of {@code name}, or {@code null}.
+     */
+    String get(String name) {
+        for (int i = 0; i < names.size(); i++) {
+            if (names.get(i).equalsIgnoreCase(name))
+                return values.get(i);
+        }
+
+        return null;
+    }
+
+    List<String> getAll(String name) {
+        List<String> all = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            if (names.get(i).equalsIgnoreCase(name))
+                all.add(values.get(i));
+        }
+
+        return all;
+    }
+
+    /**
+     * Whether a comma-separated value of {@code name} contains {@code token}, ignoring case.
+     */
+    boolean containsToken(String name, String token) {
+        for (String value : getAll(name)) {
+            for (String element : value.split(",")) {
+                if (element.trim().equalsIgnoreCase(token))
+                    return true;
+            }
+        }
+
+        return false;
+    }
+
+    Set<String> names() {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String name : names) {
+            boolean seen = false;
+            for (String existing : distinct) {
+                if (existing.equalsIgnoreCase(name)) {
+                    seen = true;
+                    break;
+                }
+            }
+
+            if (!seen)
+                distinct.add(name);
+        }
+
+        return distinct;
+    }
+
+    int size() {
+        return names.size();
+    }
+
+    String name(int index) {
+        return names.get(index);
+    }
+
+    String value(int index) {
+        return values.get(index);
+    }
+}
@@ -0,0 +1,307 @@
+package spring.server.nio;
+
+import spring.exception.ResponseException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Incremental HTTP/1.x request parser. It consumes whatever input has arrived, keeps partial lines
+ * and bodies between calls and stops right after the end of a request, so pipelined requests
+ * behind it stay in the buffer. Bodies are taken by {@code Content-Length} or chunked
+ * {@code Transfer-Encoding}; other transfer codings are rejected.
+ * <p>
+ * Malformed or oversized requests surface as {@link ResponseException} with the status to answer;
+ * the parser can't resynchronize afterwards, so the connection has to be closed.
+ */
+final class HttpRequestParser {
+    private static final byte[] EMPTY = new byte[0];
+    private static final int MAX_CHUNK_LINE = 1024;
+
+    private enum State {REQUEST_LINE, HEADERS, BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILERS}
+
+    private final int maxHeaderSize;
+    private final long maxBodySize;
+    private State state = State.REQUEST_LINE;
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private int headerSize;
+    private String method;
+    private String target;
+    private String protocol;
+    private HttpHeaders headers;
+    private byte[] body;
+    private int bodyLength;
+    private long remaining;
+    private boolean continueExpected;
+
+    /**
+     * @param maxHeaderSize byte limit of the request line and headers together
+     * @param maxBodySize   byte limit of the decoded body
+     */
+    HttpRequestParser(int maxHeaderSize, long maxBodySize) {
+        this.maxHeaderSize = maxHeaderSize;
+        this.maxBodySize = Math.min(maxBodySize, Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * Consumes input up to the end of the next request.
+     *
+     * @return the request once it is complete, {@code null} while more input is needed
+     */
+    ParsedRequest parse(ByteBuffer in) {
+        while (in.hasRemaining()) {
+            if (state == State.BODY || state == State.CHUNK_DATA) {
+                int n = (int) Math.min(remaining, in.remaining());
+                in.get(body, bodyLength, n);
+                bodyLength += n;
+                remaining -= n;
+                if (remaining > 0)
+                    return null;
+
+                if (state == State.BODY)
+                    return complete();
+
+                state = State.CHUNK_END;
+                continue;
+            }
+
+            if (!readLine(in))
+                return null;
+
+            ParsedRequest request = onLine(new String(line, 0, lineLength, StandardCharsets.ISO_8859_1));
+            lineLength = 0;
+            if (request != null)
+                return request;
+        }
+
+        return null;
+    }
+
+    /**
+     * Whether the client waits for {@code 100 Continue} before sending the body of the current
+     * request; reported once.
+     */
+    boolean takeContinueExpected() {
+        boolean expected = continueExpected;
+        continueExpected = false;
+        return expected;
+    }
+
+    /**
+     * Whether part of a request has been consumed.
+     */
+    boolean isStarted() {
+        return state != State.REQUEST_LINE || lineLength > 0;
+    }
+
+    private boolean readLine(ByteBuffer in) {
+        boolean header = state == State.REQUEST_LINE || state == State.HEADERS || state == State.TRAILERS;
+        while (in.hasRemaining()) {
+            byte b = in.get();
+            if (header && ++headerSize > maxHeaderSize)
+                throw new ResponseException(431, "Request header exceeds " + maxHeaderSize + " bytes");
+
+            if (b == '\n') {
+                if (lineLength > 0 && line[lineLength - 1] == '\r')
+                    lineLength--;
+
+                return true;
+            }
+
+            if (!header && lineLength >= MAX_CHUNK_LINE)
+                throw new ResponseException(400, "Chunk size line too long");
+
+            if (lineLength == line.length)
+                line = Arrays.copyOf(line, line.length * 2);
+
+            line[lineLength++] = b;
+        }
+
+        return false;
+    }
+
+    private ParsedRequest onLine(String text) {
+        switch (state) {
+            case REQUEST_LINE -> {
+                // a stray CRLF between pipelined requests is tolerated
+                if (!text.isEmpty())
+                    parseRequestLine(text);
+            }
+            case HEADERS -> {
+                if (text.isEmpty())
+                    return headersComplete();
+
+                parseHeader(text);
+            }
+            case CHUNK_SIZE -> {
+                long size = parseChunkSize(text);
+                if (size == 0) {
+                    state = State.TRAILERS;
+                    return null;
+                }
+
+                if (bodyLength + size > maxBodySize)
+                    throw tooLarge();
+
+                if (bodyLength + size > body.length)
+                    body = Arrays.copyOf(body, (int) Math.min(maxBodySize, Math.max(body.length * 2L, bodyLength + size)));
+
+                remaining = size;
+                state = State.CHUNK_DATA;
+            }
+            case CHUNK_END -> {
+                if (!text.isEmpty())
+                    throw new ResponseException(400, "Malformed chunked body");
+
+                state = State.CHUNK_SIZE;
+            }
+            case TRAILERS -> {
+                if (text.isEmpty())
+                    return complete();
+            }
+            default -> throw new IllegalStateException(state.name());
+        }
+
+        return null;
+    }
+
+    private void parseRequestLine(String text) {
+        int first = text.indexOf(' ');
+        int last = text.lastIndexOf(' ');
+        if (first <= 0 || last == first || text.indexOf(' ', first + 1) != last)
+            throw new ResponseException(400, "Malformed request line");
+
+        method = text.substring(0, first);
+        target = text.substring(first + 1, last);
+        protocol = text.substring(last + 1);
+        if (target.isEmpty())
+            throw new ResponseException(400, "Malformed request line");
+
+        if (!protocol.equals("HTTP/1.1") && !protocol.equals("HTTP/1.0"))
+            throw new ResponseException(505, "HTTP version not supported: " + protocol);
+
+        headers = new HttpHeaders();
+        state = State.HEADERS;
+    }
+
+    private void parseHeader(String text) {
+        if (text.charAt(0) == ' ' || text.charAt(0) == '\t')
+            throw new ResponseException(400, "Folded header lines are not supported");
+
+        int colon = text.indexOf(':');
+        if (colon <= 0)
+            throw new ResponseException(400, "Malformed header line");
+
+        String name = text.substring(0, colon);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c <= ' ' || c >= 0x7f)
+                throw new ResponseException(400, "Malformed header name");
+        }
+
+        headers.add(name, text.substring(colon + 1).strip());
+    }
+
+    private ParsedRequest headersComplete() {
+        if (protocol.equals("HTTP/1.1") && !headers.contains("Host"))
+            throw new ResponseException(400, "Missing Host header");
+
+        String transferEncoding = headers.get("Transfer-Encoding");
+        if (transferEncoding != null) {
+            // both would let a proxy and this server disagree on where the request ends
+            if (headers.contains("Content-Length"))
+                throw new ResponseException(400, "Both Transfer-Encoding and Content-Length present");
+
+            if (headers.getAll("Transfer-Encoding").size() > 1 || !transferEncoding.equalsIgnoreCase("chunked"))
+                throw new ResponseException(501, "Transfer-Encoding not supported: " + transferEncoding);
+
+            body = new byte[(int) Math.min(maxBodySize, 8192)];
+            state = State.CHUNK_SIZE;
+            continueExpected = expectsContinue();
+            return null;
+        }
+
+        long contentLength = parseContentLength();
+        if (contentLength == 0)
+            return complete();
+
+        if (contentLength > maxBodySize)
+            throw tooLarge();
+
+        body = new byte[(int) contentLength];
+        remaining = contentLength;
+        state = State.BODY;
+        continueExpected = expectsContinue();
+        return null;
+    }
+
+    private long parseContentLength() {
+        long contentLength = -1;
+        for (String value : headers.getAll("Content-Length")) {
+            for (String element : value.split(",")) {
+                String digits = element.trim();
+                if (digits.isEmpty() || digits.length() > 18 || !digits.chars().allMatch(c -> c >= '0' && c <= '9'))
+                    throw new ResponseException(400, "Malformed Content-Length");
+
+                long parsed = Long.parseLong(digits);
+                if (contentLength >= 0 && parsed != contentLength)
+                    throw new ResponseException(400, "Malformed Content-Length");
+
+                contentLength = parsed;
+            }
+        }
+
+        return Math.max(contentLength, 0);
+    }
+
+    /**
+     * Hex digits only; signs and prefixes that {@link Long#parseLong} would take are malformed,
+     * and at most 15 digits keep the size far from overflowing.
+     */
+    private static long parseChunkSize(String text) {
+        int end = text.indexOf(';');
+        String size = (end < 0 ? text : text.substring(0, end)).strip();
+        if (size.isEmpty() || size.length() > 15)
+            throw new ResponseException(400, "Malformed chunk size");
+
+        long value = 0;
+        for (int i = 0; i < size.length(); i++) {
+            int digit = Character.digit(size.charAt(i), 16);
+            if (digit < 0)
+                throw new ResponseException(400, "Malformed chunk size");
+
+            value = value << 4 | digit;
+        }
+
+        return value;
+    }
+
+    private boolean expectsContinue() {
+        return protocol.equals("HTTP/1.1") && "100-continue".equalsIgnoreCase(headers.get("Expect"));
+    }
+
+    private ResponseException tooLarge() {
+        return new ResponseException(413, "Request body exceeds " + maxBodySize + " bytes");
+    }
+
+    private ParsedRequest complete() {
+        byte[] content = body == null ? EMPTY : bodyLength == body.length ? body : Arrays.copyOf(body, bodyLength);
+        ParsedRequest request = new ParsedRequest(method, target, protocol, headers, content);
+        state = State.REQUEST_LINE;
+        headerSize = 0;
+        method = null;
+        target = null;
+        protocol = null;
+        headers = null;
+        body = null;
+        bodyLength = 0;
+        remaining = 0;
+        continueExpected = false;
+        if (line.length > 4096)
+            line = new byte[256];
+
+        return request;
+    }
+}
@@ -0,0 +1,302 @@
+package spring.server.nio;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.Servlet;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import spring.accesslog.AccessLog;
+import spring.buffer.BufferPool;
+import spring.buffer.PooledBuffer;
+import spring.config.MethodHandler;
+import spring.dic.ApplicationContext;
+import spring.exception.ResponseException;
+import spring.metrics.MetricsServlet;
+import spring.server.DispatcherServlet;
+import spring.server.ResponseWriter;
+import spring.server.ServerComponents;
+import spring.server.WebServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lightweight HTTP/1.1 engine on NIO selectors, selected with {@code spring.server.engine=nio}.
+ * One {@link EventLoop} per core accepts, reads, parses and writes without blocking; the first
+ * loop also accepts and deals connections out round-robin. Parsed requests run through the same
+ * filters, {@link DispatcherServlet} and access log as under Tomcat, on a worker pool sized like
+ * Tomcat's request threads, since handlers block on the database.
+ * <p>
+ * Connections are kept alive and may pipeline requests, which are answered in order. Request
+ * bodies are read completely before dispatch and responses are sent whole, so streaming request
+ * bodies are bounded by {@code spring.server.nio.max-body-size} and event streams, which need
+ * async servlet support, are only available on Tomcat. So are TLS and HTTP/2.
+ * <p>
+ * Responses are rendered into direct buffers from the {@link BufferPool} configured by
+ * {@code spring.buffer-pool.*} and written to the socket without another copy.
+ */
+public class NioServer implements WebServer {
+    private static final Logger LOGGER = Logger.getLogger(NioServer.class.getName());
+    private static final int DEFAULT_PORT = 8080;
+
+    private final ApplicationContext applicationContext;
+    private final int serverPort;
+    private final int eventLoopCount;
+    private final int workerThreads;
+    private final int maxConnections;
+    private final int acceptCount;
+    private final long keepAliveTimeoutNanos;
+    private final int maxKeepAliveRequests;
+    private final int maxHeaderSize;
+    private final long maxBodySize;
+    private final ResponseWriter responseWriter = new ResponseWriter();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicLong connectionIds = new AtomicLong();
+    private final AtomicLong requestIds = new AtomicLong();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private DispatcherServlet dispatcherServlet;
+    private MetricsServlet metricsServlet;
+    private String metricsEndpoint;
+    private List<Filter> filters;
+    private AccessLog accessLog;
+    private BufferPool bufferPool;
+    private EventLoop[] loops;
+    private ThreadPoolExecutor workers;
+    private ServerSocketChannel serverChannel;
+    private SelectionKey acceptKey;
+    private int nextLoop;
+    private volatile boolean running;
+
+    public NioServer(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+        serverPort = Integer.parseInt(applicationContext.getProperty("spring.server.port", String.valueOf(DEFAULT_PORT)));
+        eventLoopCount = Integer.parseInt(applicationContext.getProperty("spring.server.nio.event-loops",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        workerThreads = Integer.parseInt(applicationContext.getProperty("spring.server.nio.worker-threads", "200"));
+        maxConnections = Integer.parseInt(applicationContext.getProperty("spring.server.nio.max-connections", "8192"));
+        acceptCount = Integer.parseInt(applicationContext.getProperty("spring.server.nio.accept-count", "100"));
+        keepAliveTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(applicationContext.getProperty("spring.server.nio.keep-alive-timeout-ms", "20000")));
+        maxKeepAliveRequests = Integer.parseInt(applicationContext.getProperty("spring.server.nio.max-keep-alive-requests", "100"));
+        maxHeaderSize = Integer.parseInt(applicationContext.getProperty("spring.server.nio.max-header-size", "8192"));
+        maxBodySize = Long.parseLong(applicationContext.getProperty("spring.server.nio.max-body-size", String.valueOf(10L << 20)));
+    }
+
+    @Override
+    public void start() throws Exception {
+        if (Boolean.parseBoolean(applicationContext.getProperty("spring.server.ssl.enabled", "false"))
+                || Boolean.parseBoolean(applicationContext.getProperty("spring.server.http2.enabled", "false")))
+            throw new IllegalStateException("TLS and HTTP/2 are only supported by the tomcat server engine");
+
+        dispatcherServlet = applicationContext.getInstance(DispatcherServlet.class);
+        metricsEndpoint = ServerComponents.getMetricsEndpoint(applicationContext);
+        if (metricsEndpoint != null)
+            metricsServlet = new MetricsServlet(applicationContext.getMeterRegistry());
+
+        accessLog = ServerComponents.createAccessLog(applicationContext);
+        bufferPool = ServerComponents.createBufferPool(applicationContext);
+        filters = ServerComponents.createFilters(applicationContext, workerThreads);
+        applicationContext.getMeterRegistry().gauge("http_open_connections", "Connections currently open on the nio server engine.", openConnections::get);
+
+        AtomicInteger workerIds = new AtomicInteger();
+        workers = new ThreadPoolExecutor(workerThreads, workerThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "nio-worker-" + workerIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        workers.allowCoreThreadTimeOut(true);
+
+        loops = new EventLoop[Math.max(1, eventLoopCount)];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop("nio-loop-" + i, keepAliveTimeoutNanos);
+        }
+
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(new InetSocketAddress(serverPort), acceptCount);
+        serverChannel.configureBlocking(false);
+        acceptKey = serverChannel.register(loops[0].selector(), SelectionKey.OP_ACCEPT, (EventLoop.Handler) key -> accept());
+        running = true;
+        for (EventLoop loop : loops) {
+            loop.start();
+        }
+
+        LOGGER.info(() -> "Nio server started on port " + getPort() + " with " + loops.length + " event loops");
+    }
+
+    @Override
+    public void await() {
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void stop() throws Exception {
+        running = false;
+        serverChannel.close();
+        for (EventLoop loop : loops) {
+            loop.shutdown();
+        }
+
+        workers.shutdownNow();
+        stopped.countDown();
+    }
+
+    @Override
+    public int getPort() {
+        try {
+            return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            return serverPort;
+        }
+    }
+
+    int getMaxKeepAliveRequests() {
+        return maxKeepAliveRequests;
+    }
+
+    /**
+     * Accepts pending connections on the first loop. At {@code maxConnections} accepting pauses
+     * and further clients wait in the listen backlog until a connection closes.
+     */
+    private void accept() {
+        try {
+            SocketChannel channel;
+            while (openConnections.get() < maxConnections && (channel = serverChannel.accept()) != null) {
+                openConnections.incrementAndGet();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                EventLoop loop = loops[nextLoop];
+                nextLoop = (nextLoop + 1) % loops.length;
+                SocketChannel accepted = channel;
+                loop.execute(() -> open(loop, accepted));
+            }
+
+            if (openConnections.get() >= maxConnections)
+                acceptKey.interestOps(0);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Accepting connection failed", e);
+        }
+    }
+
+    private void open(EventLoop loop, SocketChannel channel) {
+        try {
+            new HttpConnection(this, loop, channel, Long.toHexString(connectionIds.incrementAndGet()),
+                    new HttpRequestParser(maxHeaderSize, maxBodySize));
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Registering connection failed", e);
+            try {
+                channel.close();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+
+            connectionClosed();
+        }
+    }
+
+    void connectionClosed() {
+        if (openConnections.getAndDecrement() == maxConnections && running)
+            loops[0].execute(() -> {
+                if (acceptKey.isValid())
+                    acceptKey.interestOps(SelectionKey.OP_ACCEPT);
+            });
+    }
+
+    /**
+     * Runs {@code request} on a worker and hands the response back to the connection's loop.
+     *
+     * @param lastRequest whether the connection reached its keep-alive request limit
+     */
+    void dispatch(HttpConnection connection, ParsedRequest request, boolean lastRequest) {
+        workers.execute(() -> {
+            long start = System.nanoTime();
+            NioServletResponse resp = new NioServletResponse(bufferPool);
+            NioServletRequest req = null;
+            try {
+                req = new NioServletRequest(request, connection.info(), Long.toHexString(requestIds.incrementAndGet()));
+                new Chain(metricsServlet != null && metricsEndpoint.equals(req.getPathInfo()) ? metricsServlet : dispatcherServlet).doFilter(req, resp);
+            } catch (ResponseException e) {
+                resp.reset();
+                writeError(resp, e.statusCode, e.message);
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Request processing failed", e);
+                resp.reset();
+                writeError(resp, 500, "Internal Server Error");
+            } catch (Error e) {
+                resp.release();
+                connection.loop().execute(connection::close);
+                throw e;
+            }
+
+            boolean keepAlive = !lastRequest && running && request.isKeepAlive() && !resp.isCloseRequested();
+            boolean head = request.method().equals("HEAD");
+            int bodyLength = head ? 0 : resp.getBodyLength();
+            PooledBuffer[] response = resp.render(request.protocol(), head, keepAlive);
+            if (accessLog != null)
+                log(request, req, resp, bodyLength, start);
+
+            connection.loop().execute(() -> connection.complete(response, keepAlive));
+        });
+    }
+
+    /**
+     * Response to a request that couldn't be parsed; the connection is closed after it.
+     */
+    PooledBuffer[] renderError(int status, String message) {
+        NioServletResponse resp = new NioServletResponse(bufferPool);
+        writeError(resp, status, message);
+        return resp.render("HTTP/1.1", false, false);
+    }
+
+    private void writeError(NioServletResponse resp, int status, String message) {
+        try {
+            responseWriter.writeError(resp, status, message);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void log(ParsedRequest request, NioServletRequest req, NioServletResponse resp, int bodyLength, long start) {
+        Object handler = req != null ? req.getAttribute(DispatcherServlet.HANDLER_ATTRIBUTE) : null;
+        String route = handler instanceof MethodHandler methodHandler ? methodHandler.getRouteTemplate()
+                : req != null ? req.getRequestURI() : request.target();
+        accessLog.log(System.currentTimeMillis(), request.method(), route, resp.getStatus(), bodyLength, System.nanoTime() - start);
+    }
+
+    /**
+     * Passes a request through the filters to {@code servlet}.
+     */
+    private class Chain implements FilterChain {
+        private final Servlet servlet;
+        private int position;
+
+        Chain(Servlet servlet) {
+            this.servlet = servlet;
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+            if (position < filters.size())
+                filters.get(position++).doFilter(request, response, this);
+            else
+                servlet.service(request, response);
+        }
+    }
+}
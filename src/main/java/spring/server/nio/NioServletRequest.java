@@ -0,0 +1,636 @@
+package spring.server.nio;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletConnection;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpUpgradeHandler;
+import jakarta.servlet.http.Part;
+import spring.exception.ResponseException;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.security.Principal;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * {@link HttpServletRequest} over a {@link ParsedRequest}, covering what the dispatcher, the
+ * filters and controllers use. Everything is served from the root context with the dispatcher
+ * mapped to {@code /*}, so the servlet path is empty and the path info is the decoded path.
+ * Sessions, authentication, multipart bodies and async processing aren't supported.
+ */
+final class NioServletRequest implements HttpServletRequest {
+    private final ParsedRequest request;
+    private final ConnectionInfo connection;
+    private final String requestId;
+    private final String requestUri;
+    private final String pathInfo;
+    private final String queryString;
+    private final Map<String, Object> attributes = new HashMap<>();
+    private String characterEncoding;
+    private Map<String, String[]> parameters;
+    private boolean bodyTaken;
+
+    NioServletRequest(ParsedRequest request, ConnectionInfo connection, String requestId) {
+        this.request = request;
+        this.connection = connection;
+        this.requestId = requestId;
+        String target = request.target();
+        if (!target.startsWith("/") && !target.equals("*")) {
+            // absolute-form, as sent to proxies
+            int authority = target.indexOf("://");
+            int path = authority < 0 ? -1 : target.indexOf('/', authority + 3);
+            if (authority < 0)
+                throw new ResponseException(400, "Malformed request target");
+
+            target = path < 0 ? "/" : target.substring(path);
+        }
+
+        int query = target.indexOf('?');
+        requestUri = query < 0 ? target : target.substring(0, query);
+        queryString = query < 0 ? null : target.substring(query + 1);
+        pathInfo = decodePath(requestUri);
+        characterEncoding = charsetOf(request.headers().get("Content-Type"));
+    }
+
+    /**
+     * Connection a request arrived on.
+     */
+    record ConnectionInfo(String id, InetSocketAddress remote, InetSocketAddress local) {
+    }
+
+    /**
+     * Percent-decodes a path as UTF-8; unlike {@link URLDecoder}, {@code '+'} stays as it is.
+     */
+    private static String decodePath(String path) {
+        if (path.indexOf('%') < 0 && path.chars().allMatch(c -> c < 0x80))
+            return path;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(path.length());
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c != '%') {
+                bytes.write(c);
+                continue;
+            }
+
+            int high = i + 2 < path.length() ? Character.digit(path.charAt(i + 1), 16) : -1;
+            int low = high >= 0 ? Character.digit(path.charAt(i + 2), 16) : -1;
+            if (low < 0)
+                throw new ResponseException(400, "Malformed percent-encoding in path");
+
+            bytes.write(high << 4 | low);
+            i += 2;
+        }
+
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String charsetOf(String contentType) {
+        if (contentType == null)
+            return null;
+
+        for (String parameter : contentType.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.regionMatches(true, 0, "charset=", 0, 8))
+                return trimmed.substring(8).replace("\"", "").trim();
+        }
+
+        return null;
+    }
+
+    @Override
+    public String getAuthType() {
+        return null;
+    }
+
+    @Override
+    public Cookie[] getCookies() {
+        List<Cookie> cookies = new ArrayList<>();
+        for (String header : request.headers().getAll("Cookie")) {
+            for (String pair : header.split(";")) {
+                int eq = pair.indexOf('=');
+                if (eq <= 0)
+                    continue;
+
+                try {
+                    cookies.add(new Cookie(pair.substring(0, eq).trim(), pair.substring(eq + 1).trim()));
+                } catch (IllegalArgumentException e) {
+                    // invalid cookie names are skipped, as Tomcat does
+                }
+            }
+        }
+
+        return cookies.isEmpty() ? null : cookies.toArray(new Cookie[0]);
+    }
+
+    @Override
+    public long getDateHeader(String name) {
+        String value = getHeader(name);
+        if (value == null)
+            return -1;
+
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(value, e);
+        }
+    }
+
+    @Override
+    public String getHeader(String name) {
+        return request.headers().get(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        return Collections.enumeration(request.headers().getAll(name));
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        return Collections.enumeration(request.headers().names());
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        String value = getHeader(name);
+        return value == null ? -1 : Integer.parseInt(value);
+    }
+
+    @Override
+    public String getMethod() {
+        return request.method();
+    }
+
+    @Override
+    public String getPathInfo() {
+        return pathInfo;
+    }
+
+    @Override
+    public String getPathTranslated() {
+        return null;
+    }
+
+    @Override
+    public String getContextPath() {
+        return "";
+    }
+
+    @Override
+    public String getQueryString() {
+        return queryString;
+    }
+
+    @Override
+    public String getRemoteUser() {
+        return null;
+    }
+
+    @Override
+    public boolean isUserInRole(String role) {
+        return false;
+    }
+
+    @Override
+    public Principal getUserPrincipal() {
+        return null;
+    }
+
+    @Override
+    public String getRequestedSessionId() {
+        return null;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return requestUri;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        String host = getHeader("Host");
+        if (host == null)
+            host = getServerName() + ":" + getServerPort();
+
+        return new StringBuffer(getScheme()).append("://").append(host).append(requestUri);
+    }
+
+    @Override
+    public String getServletPath() {
+        return "";
+    }
+
+    @Override
+    public HttpSession getSession(boolean create) {
+        if (create)
+            throw new IllegalStateException("Sessions are not supported by the nio server engine");
+
+        return null;
+    }
+
+    @Override
+    public HttpSession getSession() {
+        return getSession(true);
+    }
+
+    @Override
+    public String changeSessionId() {
+        throw new IllegalStateException("Sessions are not supported by the nio server engine");
+    }
+
+    @Override
+    public boolean isRequestedSessionIdValid() {
+        return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromCookie() {
+        return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromURL() {
+        return false;
+    }
+
+    @Override
+    public boolean authenticate(HttpServletResponse response) {
+        return false;
+    }
+
+    @Override
+    public void login(String username, String password) {
+        throw new UnsupportedOperationException("Authentication is not supported by the nio server engine");
+    }
+
+    @Override
+    public void logout() {
+    }
+
+    @Override
+    public Collection<Part> getParts() {
+        throw new UnsupportedOperationException("Multipart requests are not supported by the nio server engine");
+    }
+
+    @Override
+    public Part getPart(String name) {
+        throw new UnsupportedOperationException("Multipart requests are not supported by the nio server engine");
+    }
+
+    @Override
+    public <T extends HttpUpgradeHandler> T upgrade(Class<T> handlerClass) {
+        throw new UnsupportedOperationException("Protocol upgrades are not supported by the nio server engine");
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(new ArrayList<>(attributes.keySet()));
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return characterEncoding;
+    }
+
+    @Override
+    public void setCharacterEncoding(String env) throws UnsupportedEncodingException {
+        if (bodyTaken)
+            return;
+
+        try {
+            Charset.forName(env);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            throw new UnsupportedEncodingException(env);
+        }
+
+        characterEncoding = env;
+    }
+
+    @Override
+    public int getContentLength() {
+        long length = getContentLengthLong();
+        return length > Integer.MAX_VALUE ? -1 : (int) length;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return request.body().length > 0 || request.headers().contains("Content-Length") ? request.body().length : -1;
+    }
+
+    @Override
+    public String getContentType() {
+        return getHeader("Content-Type");
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        bodyTaken = true;
+        return new BodyInputStream(request.body());
+    }
+
+    @Override
+    public String getParameter(String name) {
+        String[] values = getParameterMap().get(name);
+        return values == null ? null : values[0];
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(getParameterMap().keySet());
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        String[] values = getParameterMap().get(name);
+        return values == null ? null : values.clone();
+    }
+
+    /**
+     * Query string parameters; form bodies aren't parsed.
+     */
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        if (parameters != null)
+            return parameters;
+
+        Map<String, List<String>> collected = new LinkedHashMap<>();
+        if (queryString != null) {
+            for (String pair : queryString.split("&")) {
+                if (pair.isEmpty())
+                    continue;
+
+                int eq = pair.indexOf('=');
+                try {
+                    String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+                    String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                    collected.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+                } catch (IllegalArgumentException e) {
+                    // malformed pairs are skipped, as Tomcat does
+                }
+            }
+        }
+
+        Map<String, String[]> map = new LinkedHashMap<>();
+        collected.forEach((name, values) -> map.put(name, values.toArray(new String[0])));
+        parameters = Collections.unmodifiableMap(map);
+        return parameters;
+    }
+
+    @Override
+    public String getProtocol() {
+        return request.protocol();
+    }
+
+    @Override
+    public String getScheme() {
+        return "http";
+    }
+
+    @Override
+    public String getServerName() {
+        String host = getHeader("Host");
+        if (host == null || host.isEmpty())
+            return connection.local().getHostString();
+
+        int end = host.startsWith("[") ? host.indexOf(']') + 1 : host.indexOf(':');
+        return end <= 0 ? host : host.substring(0, end);
+    }
+
+    @Override
+    public int getServerPort() {
+        String host = getHeader("Host");
+        int colon = host == null ? -1 : host.lastIndexOf(':');
+        if (colon < 0 || host.lastIndexOf(']') > colon)
+            return connection.local().getPort();
+
+        try {
+            return Integer.parseInt(host.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            return connection.local().getPort();
+        }
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        bodyTaken = true;
+        Charset charset = characterEncoding != null ? Charset.forName(characterEncoding) : StandardCharsets.ISO_8859_1;
+        return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(request.body()), charset));
+    }
+
+    @Override
+    public String getRemoteAddr() {
+        return connection.remote().getAddress().getHostAddress();
+    }
+
+    @Override
+    public String getRemoteHost() {
+        return getRemoteAddr();
+    }
+
+    @Override
+    public void setAttribute(String name, Object o) {
+        if (o == null)
+            attributes.remove(name);
+        else
+            attributes.put(name, o);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    @Override
+    public Locale getLocale() {
+        return Locale.getDefault();
+    }
+
+    @Override
+    public Enumeration<Locale> getLocales() {
+        return Collections.enumeration(List.of(Locale.getDefault()));
+    }
+
+    @Override
+    public boolean isSecure() {
+        return false;
+    }
+
+    @Override
+    public RequestDispatcher getRequestDispatcher(String path) {
+        return null;
+    }
+
+    @Override
+    public int getRemotePort() {
+        return connection.remote().getPort();
+    }
+
+    @Override
+    public String getLocalName() {
+        return connection.local().getHostString();
+    }
+
+    @Override
+    public String getLocalAddr() {
+        return connection.local().getAddress().getHostAddress();
+    }
+
+    @Override
+    public int getLocalPort() {
+        return connection.local().getPort();
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return null;
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+        throw new IllegalStateException("Async processing is not supported by the nio server engine");
+    }
+
+    @Override
+    public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) {
+        return startAsync();
+    }
+
+    @Override
+    public boolean isAsyncStarted() {
+        return false;
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+        return false;
+    }
+
+    @Override
+    public AsyncContext getAsyncContext() {
+        throw new IllegalStateException("Async processing is not supported by the nio server engine");
+    }
+
+    @Override
+    public DispatcherType getDispatcherType() {
+        return DispatcherType.REQUEST;
+    }
+
+    @Override
+    public String getRequestId() {
+        return requestId;
+    }
+
+    @Override
+    public String getProtocolRequestId() {
+        return "";
+    }
+
+    @Override
+    public ServletConnection getServletConnection() {
+        return new ServletConnection() {
+            @Override
+            public String getConnectionId() {
+                return connection.id();
+            }
+
+            @Override
+            public String getProtocol() {
+                return request.protocol();
+            }
+
+            @Override
+            public String getProtocolConnectionId() {
+                return "";
+            }
+
+            @Override
+            public boolean isSecure() {
+                return false;
+            }
+        };
+    }
+
+    private static final class BodyInputStream extends ServletInputStream {
+        private final byte[] body;
+        private int position;
+
+        BodyInputStream(byte[] body) {
+            this.body = body;
+        }
+
+        @Override
+        public int read() {
+            return position < body.length ? body[position++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0)
+                return 0;
+
+            if (position >= body.length)
+                return -1;
+
+            int n = Math.min(len, body.length - position);
+            System.arraycopy(body, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return body.length - position;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return position >= body.length;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new IllegalStateException("Non-blocking reads are not supported by the nio server engine");
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package spring.server.nio;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import spring.buffer.BufferPool;
+import spring.buffer.PooledBuffer;
+import spring.http.HttpStatus;
+
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * {@link HttpServletResponse} that keeps the whole body in memory and is rendered once the
+ * servlet returns, so every response carries an exact {@code Content-Length} and goes out with a
+ * single gathering write. Nothing reaches the client before that, which means the response is
+ * never committed while the servlet runs and an error can always replace a partial body.
+ * <p>
+ * Head and body are kept in pooled direct buffers that are written to the socket as they are.
+ * They belong to the response until {@link #render} hands them over, or {@link #release} returns
+ * them to the pool when nothing is rendered.
+ */
+final class NioServletResponse implements HttpServletResponse {
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.ENGLISH);
+    private static volatile CachedDate cachedDate = new CachedDate(0, "");
+
+    private final HttpHeaders headers = new HttpHeaders();
+    private final BufferPool bufferPool;
+    private final BodyOutputStream body;
+    private int status = SC_OK;
+    private String contentType;
+    private String characterEncoding;
+    private Locale locale = Locale.getDefault();
+    private PrintWriter writer;
+    private boolean streamTaken;
+    private boolean errorSent;
+
+    private record CachedDate(long second, String value) {
+    }
+
+    NioServletResponse(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+        body = new BodyOutputStream(new BufferChain(bufferPool));
+    }
+
+    /**
+     * Status line and headers followed by the body, or without it for {@code HEAD} requests. The
+     * caller releases the returned buffers once they are written.
+     *
+     * @param keepAlive whether the connection stays open after this response
+     */
+    PooledBuffer[] render(String protocol, boolean head, boolean keepAlive) {
+        if (writer != null)
+            writer.flush();
+
+        HttpStatus httpStatus = HttpStatus.resolve(status);
+        StringBuilder header = new StringBuilder(256)
+                .append("HTTP/1.1 ").append(status).append(' ')
+                .append(httpStatus != null ? httpStatus.getReasonPhrase() : "").append("\r\n");
+        String type = getContentType();
+        if (type != null)
+            appendHeader(header, "Content-Type", type);
+
+        boolean bodyAllowed = status >= 200 && status != SC_NO_CONTENT && status != SC_NOT_MODIFIED;
+        if (bodyAllowed)
+            header.append("Content-Length: ").append(body.chain.size()).append("\r\n");
+
+        header.append("Date: ").append(currentDate()).append("\r\n");
+        for (int i = 0; i < headers.size(); i++) {
+            if (!headers.name(i).equalsIgnoreCase("Connection"))
+                appendHeader(header, headers.name(i), headers.value(i));
+        }
+
+        if (!keepAlive)
+            header.append("Connection: close\r\n");
+        else if (protocol.equals("HTTP/1.0"))
+            header.append("Connection: keep-alive\r\n");
+
+        header.append("\r\n");
+        BufferChain headerChain = new BufferChain(bufferPool);
+        headerChain.writeLatin1(header);
+        PooledBuffer[] headBuffers = headerChain.take();
+        if (head || !bodyAllowed || body.chain.size() == 0) {
+            body.chain.release();
+            return headBuffers;
+        }
+
+        PooledBuffer[] bodyBuffers = body.chain.take();
+        PooledBuffer[] response = new PooledBuffer[headBuffers.length + bodyBuffers.length];
+        System.arraycopy(headBuffers, 0, response, 0, headBuffers.length);
+        System.arraycopy(bodyBuffers, 0, response, headBuffers.length, bodyBuffers.length);
+        return response;
+    }
+
+    /**
+     * Returns the body's buffers to the pool when the response won't be rendered.
+     */
+    void release() {
+        body.chain.release();
+    }
+
+    /**
+     * Whether the servlet asked for the connection to be closed after this response.
+     */
+    boolean isCloseRequested() {
+        return headers.containsToken("Connection", "close");
+    }
+
+    int getBodyLength() {
+        if (writer != null)
+            writer.flush();
+
+        return body.chain.size();
+    }
+
+    /**
+     * Writes a header set by the application. Control characters other than tab, DEL and
+     * characters beyond ISO-8859-1 become spaces, as in Tomcat, so a CR or LF in a name or value
+     * can't end the header early and split the response.
+     */
+    private static void appendHeader(StringBuilder header, String name, String value) {
+        appendSanitized(header, name);
+        header.append(": ");
+        appendSanitized(header, value);
+        header.append("\r\n");
+    }
+
+    private static void appendSanitized(StringBuilder header, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            header.append(c < 32 && c != '\t' || c == 127 || c > 255 ? ' ' : c);
+        }
+    }
+
+    private static String currentDate() {
+        long second = System.currentTimeMillis() / 1000;
+        CachedDate date = cachedDate;
+        if (date.second() != second) {
+            date = new CachedDate(second, HTTP_DATE.format(ZonedDateTime.now(ZoneOffset.UTC)));
+            cachedDate = date;
+        }
+
+        return date.value();
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        StringBuilder value = new StringBuilder(cookie.getName()).append('=').append(cookie.getValue() == null ? "" : cookie.getValue());
+        if (cookie.getPath() != null)
+            value.append("; Path=").append(cookie.getPath());
+
+        if (cookie.getDomain() != null)
+            value.append("; Domain=").append(cookie.getDomain());
+
+        if (cookie.getMaxAge() >= 0)
+            value.append("; Max-Age=").append(cookie.getMaxAge());
+
+        if (cookie.getSecure())
+            value.append("; Secure");
+
+        if (cookie.isHttpOnly())
+            value.append("; HttpOnly");
+
+        headers.add("Set-Cookie", value.toString());
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        if (name.equalsIgnoreCase("Content-Type"))
+            return contentType != null;
+
+        return headers.contains(name);
+    }
+
+    @Override
+    public String encodeURL(String url) {
+        return url;
+    }
+
+    @Override
+    public String encodeRedirectURL(String url) {
+        return url;
+    }
+
+    /**
+     * Sets the status with an empty body; there is no error page to render.
+     */
+    @Override
+    public void sendError(int sc, String msg) {
+        if (errorSent)
+            throw new IllegalStateException("Response already committed");
+
+        resetBuffer();
+        status = sc;
+        errorSent = true;
+    }
+
+    @Override
+    public void sendError(int sc) {
+        sendError(sc, null);
+    }
+
+    @Override
+    public void sendRedirect(String location) {
+        resetBuffer();
+        status = SC_FOUND;
+        headers.set("Location", location);
+        errorSent = true;
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        setHeader(name, HTTP_DATE.format(ZonedDateTime.ofInstant(Instant.ofEpochMilli(date), ZoneOffset.UTC)));
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        addHeader(name, HTTP_DATE.format(ZonedDateTime.ofInstant(Instant.ofEpochMilli(date), ZoneOffset.UTC)));
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (isSpecial(name, value))
+            return;
+
+        if (value == null)
+            headers.remove(name);
+        else
+            headers.set(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (value != null && !isSpecial(name, value))
+            headers.add(name, value);
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        setHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        addHeader(name, String.valueOf(value));
+    }
+
+    /**
+     * Content type goes through {@link #setContentType}; the content length is always computed.
+     */
+    private boolean isSpecial(String name, String value) {
+        if (name.equalsIgnoreCase("Content-Type")) {
+            setContentType(value);
+            return true;
+        }
+
+        return name.equalsIgnoreCase("Content-Length");
+    }
+
+    @Override
+    public void setStatus(int sc) {
+        if (!errorSent)
+            status = sc;
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public String getHeader(String name) {
+        if (name.equalsIgnoreCase("Content-Type"))
+            return getContentType();
+
+        return headers.get(name);
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name) {
+        return headers.getAll(name);
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+        Collection<String> names = new ArrayList<>(headers.names());
+        if (contentType != null)
+            names.add("Content-Type");
+
+        return names;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return characterEncoding != null ? characterEncoding : StandardCharsets.ISO_8859_1.name();
+    }
+
+    @Override
+    public String getContentType() {
+        if (contentType == null)
+            return null;
+
+        return characterEncoding != null ? contentType + ";charset=" + characterEncoding : contentType;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (writer != null)
+            throw new IllegalStateException("getWriter() has already been called for this response");
+
+        streamTaken = true;
+        return body;
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        if (streamTaken)
+            throw new IllegalStateException("getOutputStream() has already been called for this response");
+
+        if (writer == null)
+            writer = new PrintWriter(new OutputStreamWriter(body, Charset.forName(getCharacterEncoding())));
+
+        return writer;
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+        if (writer == null)
+            characterEncoding = charset;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+    }
+
+    @Override
+    public void setContentType(String type) {
+        if (type == null) {
+            contentType = null;
+            return;
+        }
+
+        int semicolon = type.indexOf(';');
+        contentType = semicolon < 0 ? type.trim() : type.substring(0, semicolon).trim();
+        if (semicolon < 0)
+            return;
+
+        for (String parameter : type.substring(semicolon + 1).split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.regionMatches(true, 0, "charset=", 0, 8)) {
+                setCharacterEncoding(trimmed.substring(8).replace("\"", "").trim());
+            } else if (!trimmed.isEmpty()) {
+                contentType = contentType + ";" + trimmed;
+            }
+        }
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+    }
+
+    @Override
+    public int getBufferSize() {
+        return body.chain.capacity();
+    }
+
+    @Override
+    public void flushBuffer() {
+        if (writer != null)
+            writer.flush();
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (writer != null)
+            writer.flush();
+
+        body.chain.release();
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return errorSent;
+    }
+
+    @Override
+    public void reset() {
+        resetBuffer();
+        headers.clear();
+        status = SC_OK;
+        contentType = null;
+        characterEncoding = null;
+        writer = null;
+        streamTaken = false;
+    }
+
+    @Override
+    public void setLocale(Locale loc) {
+        locale = loc;
+    }
+
+    @Override
+    public Locale getLocale() {
+        return locale;
+    }
+
+    private static final class BodyOutputStream extends ServletOutputStream {
+        private final BufferChain chain;
+
+        BodyOutputStream(BufferChain chain) {
+            this.chain = chain;
+        }
+
+        @Override
+        public void write(int b) {
+            chain.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            chain.write(b, off, len);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            throw new IllegalStateException("Non-blocking writes are not supported by the nio server engine");
+        }
+    }
+}
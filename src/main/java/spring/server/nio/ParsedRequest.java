@@ -0,0 +1,17 @@
+package spring.server.nio;
+
+/**
+ * Request line, headers and decoded body of one HTTP/1.x request.
+ */
+record ParsedRequest(String method, String target, String protocol, HttpHeaders headers, byte[] body) {
+    /**
+     * Whether the client keeps the connection open after the response: HTTP/1.1 unless it sent
+     * {@code Connection: close}, HTTP/1.0 only with {@code Connection: keep-alive}.
+     */
+    boolean isKeepAlive() {
+        if (protocol.equals("HTTP/1.0"))
+            return headers.containsToken("Connection", "keep-alive");
+
+        return !headers.containsToken("Connection", "close");
+    }
+}
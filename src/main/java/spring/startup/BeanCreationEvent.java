@@ -0,0 +1,20 @@
+package spring.startup;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("spring.BeanCreation")
+@Label("Bean Creation")
+@Category({"Spring", "Startup"})
+@Description("Creation of a bean during startup, including its dependencies")
+class BeanCreationEvent extends jdk.jfr.Event {
+    @Label("Bean Class")
+    Class<?> beanClass;
+
+    @Label("Self Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long selfTime;
+}
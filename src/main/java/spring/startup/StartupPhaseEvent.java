@@ -0,0 +1,18 @@
+package spring.startup;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("spring.StartupPhase")
+@Label("Startup Phase")
+@Category({"Spring", "Startup"})
+@Description("A phase of SpringApplication.run")
+class StartupPhaseEvent extends jdk.jfr.Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Classes Loaded")
+    long classesLoaded;
+}
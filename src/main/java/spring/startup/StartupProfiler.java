@@ -0,0 +1,135 @@
+package spring.startup;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import spring.dic.ApplicationContext;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Times the phases of {@code SpringApplication.run} and every bean created while it runs.
+ * The report is written according to {@code spring.startup.report} ({@code log}, {@code json}
+ * or {@code none}); phases and bean creations are also emitted as JFR events.
+ */
+public class StartupProfiler {
+    private static final Logger LOGGER = Logger.getLogger(StartupProfiler.class.getName());
+
+    private final ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+    private final long startNanos = System.nanoTime();
+    private final List<StartupReport.PhaseTiming> phases = new ArrayList<>();
+    private final List<StartupReport.BeanTiming> beans = new ArrayList<>();
+    private final Deque<BeanFrame> beanFrames = new ArrayDeque<>();
+
+    public StartupStep start(String phase) {
+        return new StartupStep(this, phase, loadedClassCount());
+    }
+
+    /**
+     * Runs {@code action} as the startup phase {@code phase}, recording it even when it throws.
+     */
+    public <E extends Exception> void time(String phase, Phase<E> action) throws E {
+        StartupStep step = start(phase);
+        try {
+            action.run();
+        } finally {
+            step.close();
+        }
+    }
+
+    public synchronized void beanCreationStarted(Class<?> beanClass) {
+        BeanFrame frame = new BeanFrame(beanClass);
+        frame.event.begin();
+        beanFrames.push(frame);
+    }
+
+    public synchronized void beanCreationFinished(Class<?> beanClass) {
+        BeanFrame frame = beanFrames.peek();
+        if (frame == null || frame.beanClass != beanClass)
+            return;
+
+        beanFrames.pop();
+        long total = System.nanoTime() - frame.startNanos;
+        long self = total - frame.childNanos;
+        BeanFrame parent = beanFrames.peek();
+        if (parent != null)
+            parent.childNanos += total;
+
+        frame.event.selfTime = self;
+        frame.event.commit();
+        beans.add(new StartupReport.BeanTiming(beanClass.getName(), total, self));
+    }
+
+    /**
+     * Stops profiling bean creation and publishes the report.
+     */
+    public StartupReport finish(ApplicationContext applicationContext) {
+        applicationContext.setStartupProfiler(null);
+        int slowestBeans = Integer.parseInt(applicationContext.getProperty("spring.startup.report.slowest-beans", "10"));
+        StartupReport report = createReport(slowestBeans);
+        String mode = applicationContext.getProperty("spring.startup.report", "log");
+        switch (mode) {
+            case "log" -> LOGGER.info(report.toString());
+            case "json" -> writeJson(report, applicationContext.getProperty("spring.startup.report.file", "startup-report.json"));
+            case "none" -> {
+            }
+            default -> LOGGER.warning("Unknown spring.startup.report value: " + mode);
+        }
+
+        return report;
+    }
+
+    public synchronized StartupReport createReport(int slowestBeans) {
+        List<StartupReport.BeanTiming> slowest = beans.stream()
+                .sorted(Comparator.comparingLong(StartupReport.BeanTiming::selfNanos).reversed())
+                .limit(slowestBeans)
+                .toList();
+        return new StartupReport(System.nanoTime() - startNanos, List.copyOf(phases), slowest);
+    }
+
+    synchronized void recordPhase(StartupReport.PhaseTiming phase) {
+        phases.add(phase);
+    }
+
+    long loadedClassCount() {
+        return classLoading.getTotalLoadedClassCount();
+    }
+
+    private static void writeJson(StartupReport report, String file) {
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        try (Writer writer = Files.newBufferedWriter(Path.of(file), StandardCharsets.UTF_8)) {
+            gson.toJson(report, writer);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to write startup report to " + file, e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Phase<E extends Exception> {
+        void run() throws E;
+    }
+
+    private static class BeanFrame {
+        final Class<?> beanClass;
+        final long startNanos = System.nanoTime();
+        final BeanCreationEvent event = new BeanCreationEvent();
+        long childNanos;
+
+        BeanFrame(Class<?> beanClass) {
+            this.beanClass = beanClass;
+            event.beanClass = beanClass;
+        }
+    }
+}
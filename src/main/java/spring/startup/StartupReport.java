@@ -0,0 +1,59 @@
+package spring.startup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class StartupReport {
+    private final long totalNanos;
+    private final List<PhaseTiming> phases;
+    private final List<BeanTiming> slowestBeans;
+
+    StartupReport(long totalNanos, List<PhaseTiming> phases, List<BeanTiming> slowestBeans) {
+        this.totalNanos = totalNanos;
+        this.phases = phases;
+        this.slowestBeans = slowestBeans;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public List<PhaseTiming> getPhases() {
+        return phases;
+    }
+
+    public List<BeanTiming> getSlowestBeans() {
+        return slowestBeans;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Started in %.1f ms%n", millis(totalNanos)));
+        for (PhaseTiming phase : phases) {
+            sb.append(String.format("  %-12s %9.1f ms %7d classes%n", phase.name(), millis(phase.durationNanos()), phase.classesLoaded()));
+        }
+
+        if (!slowestBeans.isEmpty())
+            sb.append(String.format("Slowest beans:%n"));
+
+        for (BeanTiming bean : slowestBeans) {
+            sb.append(String.format("  %9.1f ms (self %.1f ms) %s%n", millis(bean.totalNanos()), millis(bean.selfNanos()), bean.type()));
+        }
+
+        return sb.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public record PhaseTiming(String name, long durationNanos, long classesLoaded) {
+    }
+
+    /**
+     * Total time includes the creation of the bean's dependencies, self time does not.
+     */
+    public record BeanTiming(String type, long totalNanos, long selfNanos) {
+    }
+}
@@ -0,0 +1,27 @@
+package spring.startup;
+
+public class StartupStep implements AutoCloseable {
+    private final StartupProfiler profiler;
+    private final String name;
+    private final long startNanos;
+    private final long startClasses;
+    private final StartupPhaseEvent event = new StartupPhaseEvent();
+
+    StartupStep(StartupProfiler profiler, String name, long startClasses) {
+        this.profiler = profiler;
+        this.name = name;
+        this.startClasses = startClasses;
+        event.phase = name;
+        event.begin();
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void close() {
+        long duration = System.nanoTime() - startNanos;
+        long classesLoaded = profiler.loadedClassCount() - startClasses;
+        event.classesLoaded = classesLoaded;
+        event.commit();
+        profiler.recordPhase(new StartupReport.PhaseTiming(name, duration, classesLoaded));
+    }
+}